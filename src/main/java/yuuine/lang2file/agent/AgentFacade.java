@@ -2,29 +2,43 @@ package yuuine.lang2file.agent;
 
 import lombok.RequiredArgsConstructor;
 
-import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import yuuine.lang2file.agent.dto.RouteDecision;
 import yuuine.lang2file.agent.dto.ToolMeta;
 import yuuine.lang2file.agent.dto.ToolRegistry;
 import yuuine.lang2file.agent.service.ChatClientFactory;
 import yuuine.lang2file.agent.service.DynamicToolProviderFactory;
+import yuuine.lang2file.agent.service.FusedRouterService;
+import yuuine.lang2file.agent.service.NonTaskResponseCache;
+import yuuine.lang2file.agent.service.SpeculativeRouterService;
 import yuuine.lang2file.agent.service.TaskChatRouterService;
 import yuuine.lang2file.agent.service.ToolRouterService;
-import yuuine.lang2file.util.IdUtil;
+import yuuine.lang2file.config.RouterProperties;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * 业务外观类，负责编排智能体对话的核心流程。
  * <p>
  * 根据用户输入判断是否为任务型对话，分别走不同的处理路径：
  * <ul>
- *   <li>非任务型对话：使用不带工具的普通聊天客户端直接响应。</li>
+ *   <li>非任务型对话：使用不带工具的普通聊天客户端直接响应，可选地从 {@link NonTaskResponseCache} 返回。</li>
  *   <li>任务型对话：动态选取相关工具，构造带工具的客户端进行响应。</li>
  * </ul>
+ * 任务判断与工具选择的执行方式由 {@code lang2file.router.mode} 决定，
+ * 参见 {@link RouterProperties.Mode}。
+ * </p>
+ * <p>
+ * 两条路径均以调用方传入的会话ID作为记忆的会话标识，不同用户的对话历史相互隔离。
  * </p>
  */
 @Service
@@ -36,60 +50,157 @@ public class AgentFacade {
     private final DynamicToolProviderFactory factory;
     private final ChatClientFactory clientFactory;
     private final TaskChatRouterService taskRouter;
+    private final FusedRouterService fusedRouter;
+    private final SpeculativeRouterService speculativeRouter;
+    private final RouterProperties routerProperties;
+    private final NonTaskResponseCache responseCache;
 
     /**
      * 处理用户输入的聊天消息，返回智能体的响应。
      *
+     * @param sessionId 会话ID
      * @param userInput 用户输入的文本
      * @return 聊天响应对象 {@link ChatResponse}
      */
-    public ChatResponse chat(String userInput) {
+    public ChatResponse chat(String sessionId, String userInput) {
         // 判断是否为任务型对话，分流处理
-        if (!taskRouter.isTask(userInput)) {
-            return handleNonTaskChat(userInput);
+        RouteDecision decision = route(userInput);
+        if (!decision.task()) {
+            return handleNonTaskChat(sessionId, userInput);
         } else {
-            return handleTaskChat(userInput);
+            return handleTaskChat(sessionId, userInput, decision.toolNames());
         }
     }
 
+    /**
+     * 流式处理用户输入的聊天消息，逐段返回智能体生成的文本。
+     * <p>
+     * 路由阶段为阻塞调用，在 {@link Schedulers#boundedElastic()} 上执行；
+     * 路由完成后直接转接模型的流式输出，首个 token 到达即可下发。
+     * </p>
+     *
+     * @param sessionId 会话ID
+     * @param userInput 用户输入的文本
+     * @return 响应文本片段流
+     */
+    public Flux<String> chatStream(String sessionId, String userInput) {
+        return Mono.fromCallable(() -> route(userInput))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(decision -> decision.task()
+                        ? streamTaskChat(sessionId, userInput, decision.toolNames())
+                        : streamNonTaskChat(sessionId, userInput));
+    }
+
+    /**
+     * 按配置的路由模式完成任务判断与工具选择。
+     *
+     * @param userInput 用户输入
+     * @return 路由决策
+     */
+    private RouteDecision route(String userInput) {
+        return switch (routerProperties.getMode()) {
+            case FUSED -> fusedRouter.route(userInput);
+            case SPECULATIVE -> speculativeRouter.route(userInput);
+            case SEQUENTIAL -> taskRouter.isTask(userInput)
+                    ? RouteDecision.task(router.selectTools(userInput))
+                    : RouteDecision.nonTask();
+        };
+    }
+
     /**
      * 处理非任务型对话：使用不带工具的普通聊天客户端。
      *
+     * @param sessionId 会话ID
      * @param userInput 用户输入
      * @return 聊天响应
      */
-    private ChatResponse handleNonTaskChat(String userInput) {
-        // 生成临时会话ID，创建无工具的客户端
-        ChatClient client = clientFactory.createClientWithoutTools(IdUtil.generateSessionId());
-        return client.prompt()
+    private ChatResponse handleNonTaskChat(String sessionId, String userInput) {
+        // 是否可用缓存须在调用前判断，调用后会话中已有历史记录
+        boolean cacheable = responseCache.isCacheable(sessionId, userInput);
+        if (cacheable) {
+            Optional<String> cached = responseCache.get(sessionId, userInput);
+            if (cached.isPresent()) {
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(cached.get()))));
+            }
+        }
+
+        ChatResponse response = clientFactory.promptWithMemory(sessionId)
                 .user(userInput)
                 .call()
                 .chatResponse();
+
+        if (cacheable && response != null && response.getResult() != null) {
+            responseCache.put(userInput, response.getResult().getOutput().getText());
+        }
+        return response;
     }
 
     /**
-     * 处理任务型对话：动态选取工具，构造带工具的客户端进行响应。
+     * 处理任务型对话：根据路由阶段选出的工具，构造带工具的客户端进行响应。
      *
+     * @param sessionId 会话ID
      * @param userInput 用户输入
+     * @param toolNames 路由阶段选出的工具名称列表
      * @return 聊天响应
      */
-    private ChatResponse handleTaskChat(String userInput) {
-        // 1. 根据用户输入选取匹配的工具名称列表
-        List<String> toolNames = router.selectTools(userInput);
-
-        // 2. 根据工具名称获取对应的工具元信息
+    private ChatResponse handleTaskChat(String sessionId, String userInput, List<String> toolNames) {
+        // 1. 根据工具名称获取对应的工具元信息
         List<ToolMeta> metas = registry.getByNames(toolNames);
 
-        // 3. 动态构建工具回调提供者
+        // 2. 动态构建工具回调提供者
         ToolCallbackProvider provider = factory.build(metas);
 
-        // 4. 创建绑定了工具的聊天客户端
-        ChatClient client = clientFactory.createClient(provider);
-
-        // 5. 执行提示并返回响应
-        return client.prompt()
+        // 3. 在共享客户端上按本次请求绑定工具，执行提示并返回响应
+        return clientFactory.promptWithMemoryAndTools(sessionId, provider)
                 .user(userInput)
                 .call()
                 .chatResponse();
     }
-}
\ No newline at end of file
+
+    /**
+     * 流式处理非任务型对话。
+     *
+     * @param sessionId 会话ID
+     * @param userInput 用户输入
+     * @return 响应文本片段流
+     */
+    private Flux<String> streamNonTaskChat(String sessionId, String userInput) {
+        boolean cacheable = responseCache.isCacheable(sessionId, userInput);
+        if (cacheable) {
+            Optional<String> cached = responseCache.get(sessionId, userInput);
+            if (cached.isPresent()) {
+                return Flux.just(cached.get());
+            }
+        }
+
+        Flux<String> content = clientFactory.promptWithMemory(sessionId)
+                .user(userInput)
+                .stream()
+                .content();
+        if (!cacheable) {
+            return content;
+        }
+
+        // 完整输出后再写入缓存，中途取消或出错的回复不缓存
+        StringBuilder reply = new StringBuilder();
+        return content
+                .doOnNext(reply::append)
+                .doOnComplete(() -> responseCache.put(userInput, reply.toString()));
+    }
+
+    /**
+     * 流式处理任务型对话，工具调用在流内部完成后继续输出模型回复。
+     *
+     * @param sessionId 会话ID
+     * @param userInput 用户输入
+     * @param toolNames 路由阶段选出的工具名称列表
+     * @return 响应文本片段流
+     */
+    private Flux<String> streamTaskChat(String sessionId, String userInput, List<String> toolNames) {
+        ToolCallbackProvider provider = factory.build(registry.getByNames(toolNames));
+        return clientFactory.promptWithMemoryAndTools(sessionId, provider)
+                .user(userInput)
+                .stream()
+                .content();
+    }
+}
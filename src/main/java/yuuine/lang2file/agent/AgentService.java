@@ -2,6 +2,10 @@ package yuuine.lang2file.agent;
 
 import org.springframework.ai.chat.model.ChatResponse;
 import reactor.core.publisher.Flux;
+import yuuine.lang2file.agent.dto.BatchChatItem;
+import yuuine.lang2file.agent.dto.BatchChatResult;
+
+import java.util.List;
 
 /**
  * @author yuuine
@@ -12,17 +16,27 @@ public interface AgentService {
     /**
      * 处理用户输入，返回处理结果（同步）
      *
+     * @param sessionId 会话ID，同一会话共享对话记忆
      * @param userInput 用户输入
      * @return 处理结果
      */
-    ChatResponse chat(String userInput);
+    ChatResponse chat(String sessionId, String userInput);
 
     /**
      * 处理用户输入，返回处理结果（流式）
      *
+     * @param sessionId 会话ID，同一会话共享对话记忆
      * @param userInput 用户输入
      * @return 处理结果流
      */
-    Flux<String> chatStream(String userInput);
+    Flux<String> chatStream(String sessionId, String userInput);
+
+    /**
+     * 批量处理用户输入，按完成顺序返回各条目的结果
+     *
+     * @param items 批量条目
+     * @return 条目结果流
+     */
+    Flux<BatchChatResult> chatBatch(List<BatchChatItem> items);
 
 }
@@ -4,9 +4,23 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import yuuine.lang2file.agent.AgentFacade;
 import yuuine.lang2file.agent.AgentService;
+import yuuine.lang2file.agent.dto.BatchChatItem;
+import yuuine.lang2file.agent.dto.BatchChatResult;
+import yuuine.lang2file.agent.limiter.ModelBusyException;
+import yuuine.lang2file.config.BatchProperties;
+import yuuine.lang2file.util.IdUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
@@ -14,19 +28,21 @@ import yuuine.lang2file.agent.AgentService;
 public class AgentServiceImpl implements AgentService {
 
     private final AgentFacade agentFacade;
+    private final BatchProperties batchProperties;
 
     /**
      * 同步聊天方法 - 返回完整响应
      *
+     * @param sessionId 会话ID
      * @param userInput 用户输入
      * @return AI助手的完整回复
      */
     @Override
-    public ChatResponse chat(String userInput) {
+    public ChatResponse chat(String sessionId, String userInput) {
         try {
-            log.debug("处理同步聊天请求: {}", userInput);
+            log.debug("处理同步聊天请求 [{}]: {}", sessionId, userInput);
 
-            ChatResponse chatResponse = agentFacade.chat(userInput);
+            ChatResponse chatResponse = agentFacade.chat(sessionId, userInput);
 
             if (chatResponse != null) {
                 log.debug(String.valueOf(chatResponse.getResult().getOutput()));
@@ -35,6 +51,9 @@ public class AgentServiceImpl implements AgentService {
 
             return chatResponse;
 
+        } catch (ModelBusyException e) {
+            log.warn("模型调用繁忙，拒绝同步聊天请求: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("处理同步聊天请求失败: {}", userInput, e);
             throw new RuntimeException("AI服务调用失败: " + e.getMessage(), e);
@@ -42,11 +61,76 @@ public class AgentServiceImpl implements AgentService {
     }
 
     /**
+     * 流式聊天方法 - 逐段返回响应文本
+     *
+     * @param sessionId 会话ID
      * @param userInput 用户输入
-     * @return 暂时不返回内容
+     * @return AI助手回复的文本片段流
+     */
+    @Override
+    public Flux<String> chatStream(String sessionId, String userInput) {
+        log.debug("处理流式聊天请求 [{}]: {}", sessionId, userInput);
+        return agentFacade.chatStream(sessionId, userInput)
+                .doOnComplete(() -> log.info("流式对话完成"))
+                .doOnError(e -> log.error("处理流式聊天请求失败: {}", userInput, e));
+    }
+
+    /**
+     * 批量聊天方法 - 有界并行执行，按完成顺序返回
+     * <p>
+     * 条目按会话分组：不同会话之间最多同时执行 {@code lang2file.batch.parallelism} 个条目，
+     * 同一会话的条目按提交顺序依次执行，保证对话记忆的顺序。单个条目失败不影响其他条目。
+     * </p>
+     *
+     * @param items 批量条目
+     * @return 条目结果流
      */
     @Override
-    public Flux<String> chatStream(String userInput) {
-        return null;
+    public Flux<BatchChatResult> chatBatch(List<BatchChatItem> items) {
+        log.info("处理批量聊天请求，条目数: {}", items.size());
+        Map<String, List<Integer>> sessions = new LinkedHashMap<>();
+        List<String> sessionIds = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            String sessionId = items.get(i).sessionId();
+            if (!StringUtils.hasText(sessionId)) {
+                sessionId = IdUtil.generateSessionId();
+            }
+            sessionIds.add(sessionId);
+            sessions.computeIfAbsent(sessionId, k -> new ArrayList<>()).add(i);
+        }
+
+        int parallelism = Math.max(batchProperties.getParallelism(), 1);
+        return Flux.fromIterable(sessions.values())
+                .flatMap(indexes -> Flux.fromIterable(indexes)
+                                .concatMap(i -> Mono.fromCallable(() -> runBatchItem(i, items.get(i), sessionIds.get(i)))
+                                        .subscribeOn(Schedulers.boundedElastic())),
+                        parallelism)
+                .doOnComplete(() -> log.info("批量聊天请求完成，条目数: {}", items.size()));
+    }
+
+    private BatchChatResult runBatchItem(int index, BatchChatItem item, String sessionId) {
+        long start = System.nanoTime();
+        try {
+            if (!StringUtils.hasText(item.input())) {
+                throw new IllegalArgumentException("输入内容为空");
+            }
+            ChatResponse response = agentFacade.chat(sessionId, item.input());
+            String output = response == null || response.getResult() == null
+                    ? null : response.getResult().getOutput().getText();
+            return new BatchChatResult(index, item.id(), sessionId, BatchChatResult.Status.OK,
+                    output, null, elapsedMillis(start));
+        } catch (ModelBusyException e) {
+            log.warn("批量条目 {} 因模型调用繁忙被拒绝: {}", index, e.getMessage());
+            return new BatchChatResult(index, item.id(), sessionId, BatchChatResult.Status.BUSY,
+                    null, e.getMessage(), elapsedMillis(start));
+        } catch (Exception e) {
+            log.error("批量条目 {} 处理失败: {}", index, item.input(), e);
+            return new BatchChatResult(index, item.id(), sessionId, BatchChatResult.Status.ERROR,
+                    null, e.getMessage(), elapsedMillis(start));
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package yuuine.lang2file.agent.dto;
+
+/**
+ * 批量对话请求中的一个条目。
+ *
+ * @param id        客户端自定义的条目标识，原样返回，可为空
+ * @param sessionId 会话ID，为空时该条目使用新会话；相同会话的条目按提交顺序依次执行
+ * @param input     用户输入
+ */
+public record BatchChatItem(String id, String sessionId, String input) {
+}
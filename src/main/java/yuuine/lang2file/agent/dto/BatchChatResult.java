@@ -0,0 +1,34 @@
+package yuuine.lang2file.agent.dto;
+
+/**
+ * 批量对话中单个条目的执行结果，按完成顺序返回。
+ *
+ * @param index         条目在请求中的下标
+ * @param id            客户端自定义的条目标识
+ * @param sessionId     实际使用的会话ID
+ * @param status        执行状态
+ * @param output        模型回复，失败时为空
+ * @param error         失败原因，成功时为空
+ * @param elapsedMillis 条目执行耗时（毫秒）
+ */
+public record BatchChatResult(int index, String id, String sessionId, Status status,
+                              String output, String error, long elapsedMillis) {
+
+    /**
+     * 条目执行状态
+     */
+    public enum Status {
+        /**
+         * 执行成功
+         */
+        OK,
+        /**
+         * 模型调用繁忙被拒绝，可稍后重试
+         */
+        BUSY,
+        /**
+         * 执行失败
+         */
+        ERROR
+    }
+}
@@ -0,0 +1,20 @@
+package yuuine.lang2file.agent.dto;
+
+import java.util.List;
+
+/**
+ * 路由决策结果：是否为任务型对话，以及任务型对话所需的工具名称。
+ *
+ * @param task      是否为任务型对话
+ * @param toolNames 选中的工具名称（非任务型对话时为空）
+ */
+public record RouteDecision(boolean task, List<String> toolNames) {
+
+    public static RouteDecision task(List<String> toolNames) {
+        return new RouteDecision(true, toolNames);
+    }
+
+    public static RouteDecision nonTask() {
+        return new RouteDecision(false, List.of());
+    }
+}
@@ -2,8 +2,11 @@ package yuuine.lang2file.agent.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import org.springframework.ai.tool.ToolCallback;
+import yuuine.lang2file.tool.ToolAccess;
 
 import java.lang.reflect.Method;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -14,4 +17,19 @@ public class ToolMeta {
     private Object bean;
     private Method method;
 
+    /**
+     * 注册时预先构建的工具回调（含 JSON Schema），请求时直接复用
+     */
+    private ToolCallback toolCallback;
+
+    /**
+     * 是否为只读工具，来自 {@link ToolAccess}，未标注时为 false
+     */
+    private boolean readOnly;
+
+    /**
+     * 表示文件或目录路径的参数名，来自 {@link ToolAccess}
+     */
+    private List<String> pathParams;
+
 }
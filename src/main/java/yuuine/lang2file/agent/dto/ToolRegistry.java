@@ -3,6 +3,7 @@ package yuuine.lang2file.agent.dto;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Component
 public class ToolRegistry {
@@ -17,6 +18,15 @@ public class ToolRegistry {
         return toolMap.values();
     }
 
+    /**
+     * 生成工具列表描述，每行格式为“名称 : 描述”，供 LLM 提示词使用。
+     */
+    public String describeTools() {
+        return toolMap.values().stream()
+                .map(t -> t.getName() + " : " + t.getDescription())
+                .collect(Collectors.joining("\n"));
+    }
+
     public List<ToolMeta> getByNames(List<String> names) {
         return names.stream()
                 .map(toolMap::get)
@@ -0,0 +1,340 @@
+package yuuine.lang2file.agent.limiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import yuuine.lang2file.config.LimiterProperties;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 自适应并发限流器，限制同时进行中的模型 HTTP 请求数量。
+ * <p>
+ * 许可由 {@link ConcurrencyLimitInterceptor} 按每次 HTTP 往返获取与释放，延迟样本只包含上游响应时间。
+ * </p>
+ * <p>
+ * 并发上限按梯度算法（Gradient，参考 Vegas 思路）自适应调整：
+ * <ul>
+ *   <li>以指数移动平均维护长期延迟基线 {@code longRtt}，与本次调用延迟比较得到梯度
+ *       {@code gradient = clamp(tolerance * longRtt / rtt, 0.5, 1)}。</li>
+ *   <li>新上限 {@code = limit * gradient + sqrt(limit)}：延迟未上升时按平方根缓慢增长，
+ *       延迟上升（上游开始排队）时按比例收缩，再经平滑系数与旧值加权。</li>
+ *   <li>调用被上游拒绝（429、503 等）或超时时，按 {@code backoffRatio} 直接收缩。</li>
+ *   <li>实际并发不足上限一半时不调整，避免空闲期间上限无限增长。</li>
+ * </ul>
+ * 超出上限的请求进入有界等待队列（先到先得），队列已满或等待超过截止时间时抛出 {@link ModelBusyException}。
+ * </p>
+ * <p>
+ * 上限、进行中、排队数量及拒绝次数注册为监控指标 {@code lang2file.limiter.*}。
+ * </p>
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    /**
+     * 长期基线远高于当前延迟时（如上游恢复后），按该比例加速回落
+     */
+    private static final double LONG_RTT_DECAY = 0.95;
+
+    private final LimiterProperties properties;
+    private final double longRttAlpha;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    // 以下状态均由 lock 保护
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double longRtt;
+
+    private final Counter accepted;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+    private final Counter dropped;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(LimiterProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock 计算调用延迟使用的时钟
+     */
+    AdaptiveConcurrencyLimiter(LimiterProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.limit = Math.clamp(properties.getInitialLimit(), properties.getMinLimit(), properties.getMaxLimit());
+        this.longRttAlpha = 2.0 / (Math.max(properties.getLongWindow(), 1) + 1);
+
+        Gauge.builder("lang2file.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("lang2file.limiter.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        Gauge.builder("lang2file.limiter.queued", this, AdaptiveConcurrencyLimiter::getWaiting)
+                .register(meterRegistry);
+        this.accepted = Counter.builder("lang2file.limiter.requests").tag("result", "accepted").register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("lang2file.limiter.requests").tag("result", "queue_full").register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("lang2file.limiter.requests").tag("result", "timeout").register(meterRegistry);
+        this.dropped = Counter.builder("lang2file.limiter.dropped").register(meterRegistry);
+    }
+
+    /**
+     * 以配置的最长等待时间获取调用许可。
+     *
+     * @return 调用许可，调用结束后必须释放
+     * @throws ModelBusyException 队列已满或等待超时
+     */
+    public Permit acquire() {
+        return acquire(properties.getMaxWait());
+    }
+
+    /**
+     * 获取调用许可。
+     *
+     * @param maxWait 最长等待时间
+     * @return 调用许可，调用结束后必须释放
+     * @throws ModelBusyException 队列已满或等待超时
+     */
+    public Permit acquire(Duration maxWait) {
+        if (!properties.isEnabled()) {
+            return Permit.NOOP;
+        }
+
+        lock.lock();
+        try {
+            // 有请求在排队时新请求也需排队，保证先到先得
+            if (waiting == 0 && inFlight < (int) limit) {
+                return grant();
+            }
+            if (waiting >= properties.getQueueSize()) {
+                rejectedQueueFull.increment();
+                log.warn("模型调用排队已满，拒绝请求（上限 {}，进行中 {}，排队 {}）", (int) limit, inFlight, waiting);
+                throw new ModelBusyException("模型调用繁忙，排队已满，请稍后重试");
+            }
+
+            long remaining = maxWait.toNanos();
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejectedTimeout.increment();
+                        log.warn("模型调用排队超时，拒绝请求（上限 {}，进行中 {}，排队 {}）", (int) limit, inFlight, waiting);
+                        throw new ModelBusyException("模型调用繁忙，排队超时，请稍后重试");
+                    }
+                    remaining = available.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ModelBusyException("等待模型调用许可时线程被中断");
+            } finally {
+                waiting--;
+            }
+            return grant();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit grant() {
+        inFlight++;
+        accepted.increment();
+        if (inFlight < (int) limit) {
+            // 上限可能在排队期间被调高，继续唤醒下一个等待者
+            available.signal();
+        }
+        return new Permit(this, inFlight, nanoClock.getAsLong());
+    }
+
+    /**
+     * 释放许可并根据调用结果调整上限。
+     */
+    private void release(Permit permit, long rttNanos, Outcome outcome) {
+        lock.lock();
+        try {
+            inFlight--;
+            switch (outcome) {
+                case SUCCESS -> onSample(rttNanos, permit.inFlightAtStart);
+                case DROPPED -> {
+                    dropped.increment();
+                    limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+                    log.debug("模型调用被拒绝或超时，并发上限收缩为 {}", (int) limit);
+                }
+                case IGNORED -> {
+                }
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSample(long rttNanos, int inFlightAtStart) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (longRtt == 0) {
+            longRtt = rttNanos;
+        } else {
+            longRtt = longRtt * (1 - longRttAlpha) + rttNanos * longRttAlpha;
+            if (longRtt / rttNanos > 2) {
+                longRtt *= LONG_RTT_DECAY;
+            }
+        }
+
+        // 实际并发远低于上限时，延迟样本无法说明上限是否合适
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.clamp(properties.getRttTolerance() * longRtt / rttNanos, MIN_GRADIENT, 1.0);
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        double smoothing = properties.getSmoothing();
+        limit = Math.clamp(limit * (1 - smoothing) + newLimit * smoothing,
+                properties.getMinLimit(), properties.getMaxLimit());
+    }
+
+    /**
+     * 判断异常是否表示上游过载（限流、超时），此类失败应收缩并发上限。
+     */
+    static boolean isOverload(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TransientAiException
+                    || t instanceof HttpTimeoutException
+                    || t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断响应状态是否表示上游过载（限流或服务暂时不可用）。
+     */
+    static boolean isOverload(HttpStatusCode status) {
+        return status.value() == HttpStatus.TOO_MANY_REQUESTS.value()
+                || status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value();
+    }
+
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS, DROPPED, IGNORED
+    }
+
+    /**
+     * 调用许可。每个许可只能释放一次，重复释放会被忽略。
+     */
+    public static final class Permit {
+
+        static final Permit NOOP = new Permit(null, 0, 0);
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final int inFlightAtStart;
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile long respondedNanos;
+
+        private Permit(AdaptiveConcurrencyLimiter limiter, int inFlightAtStart, long startNanos) {
+            this.limiter = limiter;
+            this.inFlightAtStart = inFlightAtStart;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * 记录首次响应时间。流式调用以首个响应的延迟作为延迟样本，许可仍持有到流结束。
+         */
+        public void markResponded() {
+            if (respondedNanos == 0) {
+                respondedNanos = now();
+            }
+        }
+
+        /**
+         * 调用成功，释放许可并记录延迟样本。
+         */
+        public void success() {
+            long end = respondedNanos != 0 ? respondedNanos : now();
+            release(end - startNanos, Outcome.SUCCESS);
+        }
+
+        /**
+         * 调用失败，上游过载类错误会收缩上限，其他错误仅释放许可。
+         *
+         * @param error 调用异常
+         */
+        public void failure(Throwable error) {
+            release(0, isOverload(error) ? Outcome.DROPPED : Outcome.IGNORED);
+        }
+
+        /**
+         * 上游返回过载响应（如 429），释放许可并收缩上限。
+         */
+        public void overloaded() {
+            release(0, Outcome.DROPPED);
+        }
+
+        /**
+         * 释放许可，不记录延迟样本（如流被取消）。
+         */
+        public void ignore() {
+            release(0, Outcome.IGNORED);
+        }
+
+        private long now() {
+            return limiter != null ? limiter.nanoClock.getAsLong() : 0;
+        }
+
+        private void release(long rttNanos, Outcome outcome) {
+            if (limiter != null && released.compareAndSet(false, true)) {
+                limiter.release(this, rttNanos, outcome);
+            }
+        }
+    }
+}
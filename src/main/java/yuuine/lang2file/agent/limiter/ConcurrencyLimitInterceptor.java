@@ -0,0 +1,83 @@
+package yuuine.lang2file.agent.limiter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+
+/**
+ * 并发限流拦截器，作用于模型 API 的每一次 HTTP 往返。
+ * <p>
+ * 由 {@code LimiterConfig} 注册到 Spring Boot 提供的 {@code RestClient.Builder}（同步调用）
+ * 与 {@code WebClient.Builder}（流式调用）上，模型客户端通过这两个构建器发起请求。
+ * 许可只覆盖单次 HTTP 请求：Spring AI 内部工具调用循环中，工具执行期间不占用许可，
+ * 工具耗时也不会计入延迟样本，避免慢工具使并发上限收缩。
+ * </p>
+ * <ul>
+ *   <li>同步请求：收到响应后释放许可，以响应延迟作为样本。</li>
+ *   <li>流式请求：以收到响应头的延迟作为样本，许可持有到响应体结束、出错或取消。</li>
+ *   <li>上游返回 429、503、504 或请求超时时按过载处理，收缩并发上限。</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitInterceptor implements ClientHttpRequestInterceptor, ExchangeFilterFunction {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            if (AdaptiveConcurrencyLimiter.isOverload(response.getStatusCode())) {
+                permit.overloaded();
+            } else {
+                permit.success();
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            permit.failure(e);
+            throw e;
+        } finally {
+            // Error 不经过上面的分支，许可已释放时此处不生效
+            permit.ignore();
+        }
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        // 获取许可可能阻塞排队，放到 boundedElastic 上执行
+        return Mono.fromCallable(limiter::acquire)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(permit -> next.exchange(request)
+                        .map(response -> holdUntilBodyEnds(permit, response))
+                        .doOnError(permit::failure)
+                        .doOnCancel(permit::ignore));
+    }
+
+    private static ClientResponse holdUntilBodyEnds(AdaptiveConcurrencyLimiter.Permit permit, ClientResponse response) {
+        if (AdaptiveConcurrencyLimiter.isOverload(response.statusCode())) {
+            permit.overloaded();
+            return response;
+        }
+        permit.markResponded();
+        return response.mutate()
+                .body(body -> body
+                        .doOnComplete(permit::success)
+                        .doOnError(permit::failure)
+                        .doFinally(signal -> permit.ignore()))
+                .build();
+    }
+}
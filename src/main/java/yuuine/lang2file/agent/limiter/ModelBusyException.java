@@ -0,0 +1,15 @@
+package yuuine.lang2file.agent.limiter;
+
+/**
+ * 模型调用繁忙异常。
+ * <p>
+ * 当并发已达上限且等待队列已满，或排队等待超时时抛出，调用方应快速失败并提示稍后重试，
+ * 而不是将其作为普通的模型调用失败进行降级处理。
+ * </p>
+ */
+public class ModelBusyException extends RuntimeException {
+
+    public ModelBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,44 @@
+package yuuine.lang2file.agent.memory;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 支持增量追加的会话记忆存储。
+ * <p>
+ * {@link ChatMemoryRepository#saveAll} 的语义是整体替换会话历史，每轮对话都需要重写全部消息；
+ * 追加型存储只写入本轮新增的消息，并自行按 {@code maxMessages} 裁剪旧消息。
+ * </p>
+ * <p>
+ * 会话的滚动摘要与消息分开保存，{@link #findByConversationId} 不返回摘要。
+ * </p>
+ */
+public interface AppendableChatMemoryRepository extends ChatMemoryRepository {
+
+    /**
+     * 向会话追加消息。
+     *
+     * @param conversationId 会话ID
+     * @param messages       新增的消息，按时间顺序
+     */
+    void append(String conversationId, List<Message> messages);
+
+    /**
+     * 保存会话的滚动摘要，覆盖已有摘要。
+     *
+     * @param conversationId 会话ID
+     * @param summary        摘要文本
+     */
+    void saveSummary(String conversationId, String summary);
+
+    /**
+     * 查询会话的滚动摘要。
+     *
+     * @param conversationId 会话ID
+     * @return 摘要文本
+     */
+    Optional<String> findSummary(String conversationId);
+}
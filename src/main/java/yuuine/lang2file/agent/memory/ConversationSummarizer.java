@@ -0,0 +1,129 @@
+package yuuine.lang2file.agent.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.util.StringUtils;
+import yuuine.lang2file.config.MemoryProperties;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话摘要器：将移出记忆窗口的旧消息合并进滚动摘要。
+ * <p>
+ * 摘要调用在独立的有界线程池中执行，不占用请求线程；队列已满时直接放弃本次摘要，
+ * 被移出的消息按原有行为丢弃。摘要调用可单独指定模型（通常为更便宜的模型）和输出长度上限，
+ * 并与主对话共用模型调用的并发限流（HTTP 层），上游繁忙时摘要失败，不会绕过限流挤占主对话的调用配额。
+ * </p>
+ * <p>
+ * 摘要结果与排队数量注册为监控指标 {@code lang2file.memory.summaries}、{@code lang2file.memory.summary.queued}。
+ * </p>
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Slf4j
+public class ConversationSummarizer implements AutoCloseable {
+
+    private static final String SYSTEM_PROMPT = """
+            你是对话摘要助手。请将【已有摘要】与【新移出的对话】合并为一段新的摘要：
+            1. 保留用户的目标与偏好、已执行的文件操作（路径与结果）、尚未完成的事项和双方的约定；
+            2. 省略寒暄和重复内容，使用第三人称陈述；
+            3. 只输出摘要正文，不要任何前缀或解释。
+            """;
+
+    private final ChatClient chatClient;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter rejected;
+
+    public ConversationSummarizer(ChatModel chatModel, MemoryProperties properties, MeterRegistry meterRegistry) {
+        MemoryProperties.Summary config = properties.getSummary();
+        ChatOptions.Builder options = ChatOptions.builder()
+                .maxTokens(config.getMaxTokens())
+                .temperature(config.getTemperature());
+        if (StringUtils.hasText(config.getModel())) {
+            options.model(config.getModel());
+        }
+        this.chatClient = ChatClient.builder(chatModel)
+                .defaultSystem(SYSTEM_PROMPT)
+                .defaultOptions(options.build())
+                .build();
+
+        int concurrency = Math.max(config.getConcurrency(), 1);
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(config.getQueueSize(), 1)),
+                Thread.ofVirtual().name("chat-memory-summarizer-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.succeeded = Counter.builder("lang2file.memory.summaries").tag("result", "success").register(meterRegistry);
+        this.failed = Counter.builder("lang2file.memory.summaries").tag("result", "failure").register(meterRegistry);
+        this.rejected = Counter.builder("lang2file.memory.summaries").tag("result", "rejected").register(meterRegistry);
+        Gauge.builder("lang2file.memory.summary.queued", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * 异步生成新的滚动摘要。
+     *
+     * @param previousSummary 已有摘要，可为 null
+     * @param evicted         新移出记忆窗口的消息，按时间顺序
+     * @return 新摘要；队列已满或调用失败时异常完成
+     */
+    public CompletableFuture<String> summarize(String previousSummary, List<Message> evicted) {
+        String input = buildInput(previousSummary, evicted);
+        try {
+            return CompletableFuture.supplyAsync(() -> call(input), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private String call(String input) {
+        try {
+            String summary = chatClient.prompt().user(input).call().content();
+            if (!StringUtils.hasText(summary)) {
+                throw new IllegalStateException("摘要模型返回空内容");
+            }
+            succeeded.increment();
+            return summary.strip();
+        } catch (RuntimeException e) {
+            failed.increment();
+            throw e;
+        }
+    }
+
+    private static String buildInput(String previousSummary, List<Message> evicted) {
+        StringBuilder input = new StringBuilder("【已有摘要】\n")
+                .append(StringUtils.hasText(previousSummary) ? previousSummary : "无")
+                .append("\n\n【新移出的对话】\n");
+        for (Message message : evicted) {
+            String role = switch (message.getMessageType()) {
+                case USER -> "用户";
+                case ASSISTANT -> "助手";
+                case SYSTEM -> "系统";
+                case TOOL -> "工具";
+            };
+            input.append(role).append("：").append(message.getText()).append('\n');
+        }
+        return input.toString();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
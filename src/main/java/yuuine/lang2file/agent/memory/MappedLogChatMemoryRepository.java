@@ -0,0 +1,789 @@
+package yuuine.lang2file.agent.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.lang.NonNull;
+import yuuine.lang2file.config.MemoryProperties;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 基于内存映射追加日志的会话记忆存储。
+ * <p>
+ * 存储结构：
+ * <ul>
+ *   <li>日志由固定大小的段文件组成（{@code 00000000000000000001.log}），通过 {@link MappedByteBuffer} 写入，
+ *       追加一条消息只是一次内存拷贝。</li>
+ *   <li>记录格式：{@code [长度 int][CRC32C int][类型 byte][时间戳 long][会话ID长度 short][会话ID][消息类型 byte][消息文本]}，
+ *       长度为 0 表示段内数据结束（段文件预分配且以 0 填充）。</li>
+ *   <li>记录类型分为消息记录、清空记录与摘要记录；{@link #saveAll} 写入一条清空记录和全部消息，
+ *       {@link #append} 只写入新增消息，{@link #saveSummary} 写入的摘要记录覆盖该会话之前的摘要。</li>
+ *   <li>内存中按会话维护有效记录的位置索引，超过 {@code maxMessages} 的旧记录从索引中移除，成为无效记录。</li>
+ * </ul>
+ * </p>
+ * <p>
+ * 刷盘：{@code ASYNC} 模式下写入后立即返回，由后台线程按 {@code flushInterval} 对新写入的区间执行 {@code force}；
+ * {@code GROUP} 模式下采用组提交，写入方等待覆盖本次写入的刷盘完成——没有刷盘进行中时由该写入方执行刷盘，
+ * 刷盘期间到达的写入等待并共享下一次刷盘。
+ * </p>
+ * <p>
+ * 压缩从最旧的段开始进行：最旧的封存段有效记录比例低于阈值时，将其中仍有效的会话整体重写到日志末尾
+ * （清空记录 + 摘要 + 全部有效消息），然后删除该段。只清理最旧的段，保证删除段中的清空记录后不会在重放时
+ * 复活更早的消息。超过保留期未写入的会话在压缩时一并删除。
+ * </p>
+ * <p>
+ * 删除段前先解除其内存映射，否则 Windows 上无法删除文件，Linux 上文件删除后磁盘空间要等映射被 GC 回收才释放。
+ * 仍无法删除时在段文件旁写入 {@code .deleted} 标记并记入待删除列表，之后每次压缩重试；
+ * 启动时带标记的段不再重放，直接删除。
+ * </p>
+ * <p>
+ * 启动时按顺序重放全部段文件重建索引，遇到 CRC 校验失败或不完整的记录（写入中途崩溃）时，
+ * 视为该段数据结束。仅持久化用户、助手与系统消息的文本内容。
+ * </p>
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Slf4j
+public class MappedLogChatMemoryRepository implements AppendableChatMemoryRepository, AutoCloseable {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String DELETED_SUFFIX = ".deleted";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private static final byte RECORD_MESSAGE = 1;
+    private static final byte RECORD_CLEAR = 2;
+    private static final byte RECORD_SUMMARY = 3;
+
+    private static final byte MESSAGE_USER = 1;
+    private static final byte MESSAGE_ASSISTANT = 2;
+    private static final byte MESSAGE_SYSTEM = 3;
+
+    /**
+     * {@code Unsafe.invokeCleaner}，用于立即解除段文件的内存映射；不可用时为 null
+     */
+    private static final MethodHandle INVOKE_CLEANER = lookupCleaner();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxMessages;
+    private final MemoryProperties.Durability durability;
+    private final double compactionThreshold;
+    private final long retentionMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+
+    // 以下状态均由 lock 保护
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<String, ConversationIndex> index = new HashMap<>();
+    private final List<Path> pendingDeletes = new ArrayList<>();
+    private Segment active;
+    private long writeSeq;
+    private long forcedSeq;
+    private boolean flushing;
+    private boolean closed;
+
+    private final ScheduledExecutorService background;
+
+    private final Counter compactedSegments;
+
+    public MappedLogChatMemoryRepository(MemoryProperties properties, MeterRegistry meterRegistry) {
+        MemoryProperties.MappedLog config = properties.getMappedLog();
+        this.directory = Paths.get(config.getDirectory()).toAbsolutePath().normalize();
+        this.segmentSize = (int) Math.min(config.getSegmentSize().toBytes(), Integer.MAX_VALUE);
+        this.maxMessages = properties.getMaxMessages();
+        this.durability = config.getDurability();
+        this.compactionThreshold = config.getCompactionThreshold();
+        this.retentionMillis = config.getRetention().toMillis();
+
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开会话记忆日志失败: " + directory, e);
+        }
+
+        Gauge.builder("lang2file.memory.log.segments", this, repo -> repo.withLock(repo.segments::size))
+                .register(meterRegistry);
+        Gauge.builder("lang2file.memory.log.conversations", this, repo -> repo.withLock(repo.index::size))
+                .register(meterRegistry);
+        this.compactedSegments = Counter.builder("lang2file.memory.log.compactions").register(meterRegistry);
+
+        this.background = Executors.newScheduledThreadPool(2,
+                Thread.ofPlatform().name("chat-memory-log-", 0).daemon(true).factory());
+        long flushMillis = Math.max(config.getFlushInterval().toMillis(), 1);
+        background.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        long compactionMillis = config.getCompactionInterval().toMillis();
+        background.scheduleWithFixedDelay(this::compact, compactionMillis, compactionMillis, TimeUnit.MILLISECONDS);
+
+        log.info("会话记忆日志已打开: {}（段 {} 个，会话 {} 个）", directory, segments.size(), index.size());
+    }
+
+    // ========== ChatMemoryRepository ==========
+
+    @Override
+    public @NonNull List<String> findConversationIds() {
+        return withLock(() -> new ArrayList<>(index.keySet()));
+    }
+
+    @Override
+    public @NonNull List<Message> findByConversationId(@NonNull String conversationId) {
+        lock.lock();
+        try {
+            ensureOpen();
+            ConversationIndex conversation = index.get(conversationId);
+            if (conversation == null) {
+                return List.of();
+            }
+            List<Message> messages = new ArrayList<>(conversation.locations.size());
+            for (Location location : conversation.locations) {
+                messages.add(decodeMessage(location.read()));
+            }
+            return messages;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(@NonNull String conversationId, @NonNull List<Message> messages) {
+        List<byte[]> records = new ArrayList<>(messages.size() + 1);
+        records.add(encodeClear(conversationId));
+        records.addAll(encodeMessages(conversationId, messages));
+        write(records);
+    }
+
+    @Override
+    public void append(String conversationId, List<Message> messages) {
+        List<byte[]> records = encodeMessages(conversationId, messages);
+        if (!records.isEmpty()) {
+            write(records);
+        }
+    }
+
+    @Override
+    public void saveSummary(String conversationId, String summary) {
+        write(List.of(encode(RECORD_SUMMARY, conversationId, (byte) 0, summary.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Override
+    public Optional<String> findSummary(String conversationId) {
+        lock.lock();
+        try {
+            ensureOpen();
+            ConversationIndex conversation = index.get(conversationId);
+            if (conversation == null || conversation.summary == null) {
+                return Optional.empty();
+            }
+            return Optional.of(decodeText(conversation.summary.read()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteByConversationId(@NonNull String conversationId) {
+        write(List.of(encodeClear(conversationId)));
+    }
+
+    // ========== 写入与刷盘 ==========
+
+    /**
+     * 在一次加锁内写入一组记录；{@code GROUP} 模式下等待覆盖本次写入的刷盘完成。
+     */
+    private void write(List<byte[]> records) {
+        long seq;
+        lock.lock();
+        try {
+            ensureOpen();
+            for (byte[] record : records) {
+                apply(record, appendRecord(record));
+            }
+            seq = ++writeSeq;
+
+            if (durability == MemoryProperties.Durability.GROUP) {
+                while (forcedSeq < seq && !closed) {
+                    if (flushing) {
+                        flushed.awaitUninterruptibly();
+                    } else {
+                        forceActive();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入会话记忆日志失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 将记录写入当前段，空间不足时滚动到新段。
+     */
+    private Location appendRecord(byte[] record) throws IOException {
+        if (record.length > segmentSize) {
+            throw new IllegalArgumentException("单条记录超过日志段大小: " + record.length);
+        }
+        if (active.writePos + record.length > active.capacity()) {
+            roll();
+        }
+        int offset = active.writePos;
+        active.buffer.put(offset, record);
+        active.writePos += record.length;
+        return new Location(active, offset, record.length);
+    }
+
+    /**
+     * 封存当前段并创建新段。封存段立即刷盘，此后不再写入。
+     */
+    private void roll() throws IOException {
+        Segment sealed = active;
+        sealed.buffer.force(sealed.forcedPos, sealed.writePos - sealed.forcedPos);
+        sealed.forcedPos = sealed.writePos;
+        active = Segment.create(directory, sealed.id + 1, segmentSize);
+        segments.add(active);
+        log.debug("会话记忆日志滚动到新段: {}", active.path.getFileName());
+    }
+
+    /**
+     * 后台刷盘：没有刷盘进行中且存在未刷盘的写入时执行一次刷盘。
+     */
+    private void flush() {
+        lock.lock();
+        try {
+            if (!closed && !flushing && forcedSeq != writeSeq) {
+                forceActive();
+            }
+        } catch (RuntimeException e) {
+            log.error("会话记忆日志刷盘失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 对当前段自上次刷盘以来新写入的区间执行 force，完成后唤醒等待刷盘的写入方。
+     * 调用时必须持有锁；force 期间释放锁，写入可以继续进行。
+     */
+    private void forceActive() {
+        flushing = true;
+        Segment segment = active;
+        int from = segment.forcedPos;
+        int to = segment.writePos;
+        long seq = writeSeq;
+        boolean forced = false;
+        lock.unlock();
+        try {
+            if (to > from) {
+                segment.buffer.force(from, to - from);
+            }
+            forced = true;
+        } finally {
+            lock.lock();
+            flushing = false;
+            if (forced) {
+                segment.forcedPos = Math.max(segment.forcedPos, to);
+                forcedSeq = Math.max(forcedSeq, seq);
+            }
+            flushed.signalAll();
+        }
+    }
+
+    // ========== 索引 ==========
+
+    /**
+     * 将一条已写入（或重放中读到）的记录应用到索引。
+     */
+    private void apply(byte[] record, Location location) {
+        ByteBuffer body = ByteBuffer.wrap(record, HEADER_SIZE, record.length - HEADER_SIZE);
+        byte type = body.get();
+        long timestamp = body.getLong();
+        String conversationId = readString(body, body.getShort());
+
+        location.segment.totalRecords++;
+        if (type == RECORD_CLEAR) {
+            ConversationIndex removed = index.remove(conversationId);
+            if (removed != null) {
+                removed.release();
+            }
+            return;
+        }
+
+        ConversationIndex conversation = index.computeIfAbsent(conversationId, id -> new ConversationIndex());
+        conversation.lastWrite = Math.max(conversation.lastWrite, timestamp);
+        location.segment.liveRecords++;
+        if (type == RECORD_SUMMARY) {
+            if (conversation.summary != null) {
+                conversation.summary.segment.liveRecords--;
+            }
+            conversation.summary = location;
+            return;
+        }
+        conversation.locations.addLast(location);
+        while (conversation.locations.size() > maxMessages) {
+            conversation.locations.pollFirst().segment.liveRecords--;
+        }
+    }
+
+    // ========== 压缩 ==========
+
+    /**
+     * 后台压缩：删除超过保留期的会话，并从最旧的封存段开始回收。
+     */
+    void compact() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            expireConversations();
+            retryPendingDeletes();
+
+            while (segments.size() > 1) {
+                Segment oldest = segments.getFirst();
+                if (oldest.totalRecords > 0
+                        && (double) oldest.liveRecords / oldest.totalRecords >= compactionThreshold) {
+                    break;
+                }
+                relocateLiveConversations(oldest);
+                segments.removeFirst();
+                deleteSegment(oldest);
+                compactedSegments.increment();
+            }
+        } catch (IOException e) {
+            log.error("会话记忆日志压缩失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expireConversations() throws IOException {
+        long deadline = System.currentTimeMillis() - retentionMillis;
+        List<String> expired = new ArrayList<>();
+        index.forEach((id, conversation) -> {
+            if (conversation.lastWrite < deadline) {
+                expired.add(id);
+            }
+        });
+        for (String id : expired) {
+            byte[] record = encodeClear(id);
+            apply(record, appendRecord(record));
+        }
+        if (!expired.isEmpty()) {
+            writeSeq++;
+            log.debug("删除超过保留期的会话 {} 个", expired.size());
+        }
+    }
+
+    /**
+     * 将在指定段中仍有有效记录的会话整体重写到日志末尾。
+     */
+    private void relocateLiveConversations(Segment segment) throws IOException {
+        if (segment.liveRecords == 0) {
+            return;
+        }
+        List<String> affected = new ArrayList<>();
+        index.forEach((id, conversation) -> {
+            if (conversation.summary != null && conversation.summary.segment == segment) {
+                affected.add(id);
+                return;
+            }
+            for (Location location : conversation.locations) {
+                if (location.segment == segment) {
+                    affected.add(id);
+                    return;
+                }
+            }
+        });
+        for (String id : affected) {
+            ConversationIndex conversation = index.get(id);
+            List<byte[]> records = new ArrayList<>(conversation.locations.size() + 2);
+            records.add(encodeClear(id));
+            if (conversation.summary != null) {
+                records.add(conversation.summary.read());
+            }
+            for (Location location : conversation.locations) {
+                records.add(location.read());
+            }
+            for (byte[] record : records) {
+                apply(record, appendRecord(record));
+            }
+        }
+        writeSeq++;
+    }
+
+    /**
+     * 删除已移出的段：先确保搬移到当前段的记录已落盘，再解除映射并删除文件。
+     * 调用时必须持有锁。
+     */
+    private void deleteSegment(Segment segment) throws IOException {
+        // 该段可能正由刚释放锁的刷盘线程执行 force，解除映射前等待其结束
+        while (flushing) {
+            flushed.awaitUninterruptibly();
+        }
+        active.buffer.force(active.forcedPos, active.writePos - active.forcedPos);
+        active.forcedPos = active.writePos;
+
+        segment.release();
+        try {
+            Files.deleteIfExists(segment.path);
+            log.debug("会话记忆日志段已压缩删除: {}", segment.path.getFileName());
+        } catch (IOException e) {
+            Files.createFile(deletedMarker(segment.path));
+            pendingDeletes.add(segment.path);
+            log.warn("会话记忆日志段 {} 暂时无法删除，稍后重试: {}", segment.path.getFileName(), e.toString());
+        }
+    }
+
+    private void retryPendingDeletes() {
+        for (Iterator<Path> it = pendingDeletes.iterator(); it.hasNext(); ) {
+            Path path = it.next();
+            try {
+                Files.deleteIfExists(path);
+                Files.deleteIfExists(deletedMarker(path));
+                it.remove();
+                log.debug("会话记忆日志段已延迟删除: {}", path.getFileName());
+            } catch (IOException e) {
+                log.debug("会话记忆日志段 {} 仍无法删除: {}", path.getFileName(), e.toString());
+            }
+        }
+    }
+
+    private static Path deletedMarker(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + DELETED_SUFFIX);
+    }
+
+    // ========== 恢复 ==========
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        // 新段编号接在所有已有段之后，包括本次删除的段
+        long nextId = 1;
+        for (Path file : files) {
+            nextId = Math.max(nextId, Segment.idOf(file) + 1);
+            if (Files.exists(deletedMarker(file))) {
+                // 上次运行中已压缩、但未能删除的段，其有效记录已搬移到后续段
+                Files.deleteIfExists(file);
+                Files.delete(deletedMarker(file));
+                log.info("删除上次未能删除的会话记忆日志段: {}", file.getFileName());
+                continue;
+            }
+            Segment segment = Segment.open(file);
+            segments.add(segment);
+            replay(segment);
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(Segment.create(directory, nextId, segmentSize));
+        }
+        active = segments.getLast();
+        active.forcedPos = active.writePos;
+    }
+
+    /**
+     * 顺序重放段内记录，遇到结束标记、长度越界或 CRC 不匹配时停止。
+     */
+    private void replay(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int pos = 0;
+        while (pos + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            byte[] record = new byte[HEADER_SIZE + length];
+            buffer.get(pos, record);
+            if (crc(record) != buffer.getInt(pos + Integer.BYTES)) {
+                log.warn("会话记忆日志段 {} 在偏移 {} 处校验失败，忽略其后的数据", segment.path.getFileName(), pos);
+                break;
+            }
+            apply(record, new Location(segment, pos, record.length));
+            pos += record.length;
+        }
+        segment.writePos = pos;
+    }
+
+    // ========== 编解码 ==========
+
+    private static List<byte[]> encodeMessages(String conversationId, List<Message> messages) {
+        List<byte[]> records = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            byte type = switch (message.getMessageType()) {
+                case USER -> MESSAGE_USER;
+                case ASSISTANT -> MESSAGE_ASSISTANT;
+                case SYSTEM -> MESSAGE_SYSTEM;
+                // 工具消息不持久化
+                case TOOL -> 0;
+            };
+            if (type == 0) {
+                continue;
+            }
+            String text = message.getText() == null ? "" : message.getText();
+            records.add(encode(RECORD_MESSAGE, conversationId, type, text.getBytes(StandardCharsets.UTF_8)));
+        }
+        return records;
+    }
+
+    private static byte[] encodeClear(String conversationId) {
+        return encode(RECORD_CLEAR, conversationId, (byte) 0, new byte[0]);
+    }
+
+    private static byte[] encode(byte recordType, String conversationId, byte messageType, byte[] text) {
+        byte[] id = conversationId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > Short.MAX_VALUE) {
+            // 记录中会话 ID 的长度以 short 存储
+            throw new IllegalArgumentException("会话 ID 超过 " + Short.MAX_VALUE + " 字节: " + id.length);
+        }
+        int bodyLength = 1 + Long.BYTES + Short.BYTES + id.length
+                + (recordType == RECORD_CLEAR ? 0 : 1 + text.length);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bodyLength);
+        buffer.putInt(bodyLength).putInt(0)
+                .put(recordType)
+                .putLong(System.currentTimeMillis())
+                .putShort((short) id.length)
+                .put(id);
+        if (recordType != RECORD_CLEAR) {
+            buffer.put(messageType).put(text);
+        }
+        byte[] record = buffer.array();
+        ByteBuffer.wrap(record).putInt(Integer.BYTES, crc(record));
+        return record;
+    }
+
+    private static Message decodeMessage(byte[] record) {
+        ByteBuffer body = ByteBuffer.wrap(record, HEADER_SIZE, record.length - HEADER_SIZE);
+        body.get();
+        body.getLong();
+        short idLength = body.getShort();
+        body.position(body.position() + idLength);
+        byte type = body.get();
+        String text = readString(body, body.remaining());
+        return switch (type) {
+            case MESSAGE_USER -> new UserMessage(text);
+            case MESSAGE_SYSTEM -> new SystemMessage(text);
+            default -> new AssistantMessage(text);
+        };
+    }
+
+    private static String decodeText(byte[] record) {
+        ByteBuffer body = ByteBuffer.wrap(record, HEADER_SIZE, record.length - HEADER_SIZE);
+        body.position(body.position() + 1 + Long.BYTES);
+        short idLength = body.getShort();
+        body.position(body.position() + idLength + 1);
+        return readString(body, body.remaining());
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int crc(byte[] record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record, HEADER_SIZE, record.length - HEADER_SIZE);
+        return (int) crc.getValue();
+    }
+
+    // ========== 生命周期 ==========
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("会话记忆日志已关闭");
+        }
+    }
+
+    private <T> T withLock(Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        background.shutdownNow();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+            }
+            for (Segment segment : segments) {
+                segment.buffer.force();
+                segment.release();
+            }
+            flushed.signalAll();
+        } catch (IOException e) {
+            log.warn("关闭会话记忆日志失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ========== 内部结构 ==========
+
+    /**
+     * 记录在日志中的位置。
+     */
+    private record Location(Segment segment, int offset, int length) {
+
+        byte[] read() {
+            if (segment.released) {
+                throw new IllegalStateException("日志段已删除: " + segment.path.getFileName());
+            }
+            byte[] record = new byte[length];
+            segment.buffer.get(offset, record);
+            return record;
+        }
+    }
+
+    /**
+     * 单个会话的有效记录索引。
+     */
+    private static final class ConversationIndex {
+
+        private final ArrayDeque<Location> locations = new ArrayDeque<>();
+        private Location summary;
+        private long lastWrite;
+
+        void release() {
+            if (summary != null) {
+                summary.segment.liveRecords--;
+                summary = null;
+            }
+            for (Iterator<Location> it = locations.iterator(); it.hasNext(); ) {
+                it.next().segment.liveRecords--;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 日志段：一个预分配并整体映射的文件。
+     */
+    private static final class Segment {
+
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePos;
+        private int forcedPos;
+        private int liveRecords;
+        private int totalRecords;
+        private boolean released;
+
+        private Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path directory, long id, int size) throws IOException {
+            Path path = directory.resolve("%020d%s".formatted(id, SEGMENT_SUFFIX));
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        static Segment open(Path path) throws IOException {
+            long id = idOf(path);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+
+        static long idOf(Path path) {
+            String name = path.getFileName().toString();
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+
+        /**
+         * 关闭文件并解除映射，之后不能再访问 {@link #buffer}。
+         */
+        void release() throws IOException {
+            if (released) {
+                return;
+            }
+            released = true;
+            channel.close();
+            unmap(buffer);
+        }
+    }
+
+    private static MethodHandle lookupCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("无法立即解除内存映射，删除的日志段在映射被回收前仍占用磁盘空间: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            log.warn("解除内存映射失败: {}", e.toString());
+        }
+    }
+}
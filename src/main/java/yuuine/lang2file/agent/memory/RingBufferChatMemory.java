@@ -0,0 +1,474 @@
+package yuuine.lang2file.agent.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.lang.NonNull;
+import yuuine.lang2file.config.MemoryProperties;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * 基于环形缓冲区的会话记忆。
+ * <p>
+ * 每个会话持有一个固定容量的环形缓冲区，追加消息时直接覆盖最旧的消息，
+ * 不再像原实现那样每次追加都复制整个历史并逐条移除头部元素。
+ * 锁的粒度为单个会话，不同会话之间的读写互不阻塞。
+ * </p>
+ * <p>
+ * 记忆窗口同时受 token 预算约束：每条消息的 token 数在追加时（加锁前）计算一次，与消息一起存放在缓冲区中，
+ * 会话维护 token 总数；超出 {@code maxTokens} 时从最旧的一轮开始整轮移出
+ * （移除最旧消息后，继续移除开头残留的非用户消息），最新一条消息始终保留。
+ * {@code maxMessages} 仅作为缓冲区容量的硬上限。
+ * </p>
+ * <p>
+ * 配置了 {@link ConversationSummarizer} 时，移出窗口的消息不直接丢弃，而是在后台合并进该会话的滚动摘要，
+ * 摘要作为系统消息位于 {@link #get} 结果的最前面，并计入 token 预算。
+ * 同一会话同时最多只有一个摘要任务，任务进行期间移出的消息累积到下一次摘要；摘要失败时这批消息被丢弃。
+ * </p>
+ * <p>
+ * 会话淘汰：
+ * <ul>
+ *   <li>空闲超过 {@code idleTtl} 的会话由后台线程定期清理。</li>
+ *   <li>会话总数超过 {@code maxConversations} 时，一次性淘汰最久未访问的会话至上限的 90%，
+ *       摊薄排序开销。</li>
+ * </ul>
+ * 会话数量与淘汰次数注册为监控指标 {@code lang2file.memory.*}。
+ * </p>
+ * <p>
+ * 配置了 {@link AppendableChatMemoryRepository} 时作为其写穿缓存：新增消息在会话锁内同步追加到存储，
+ * 读取时若会话不在内存中（重启或已被淘汰），从存储中加载最近的消息。
+ * 内存淘汰不会删除存储中的数据，只有 {@link #clear} 才会删除。
+ * </p>
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Slf4j
+public class RingBufferChatMemory implements ChatMemory, AutoCloseable {
+
+    /**
+     * 超出会话上限时，淘汰至上限的该比例
+     */
+    private static final double CAPACITY_EVICTION_TARGET = 0.9;
+
+    private static final String SUMMARY_PREFIX = "以下是此前对话的摘要，供参考：\n";
+
+    private final int maxMessages;
+    private final int maxTokens;
+    private final int maxConversations;
+    private final long idleTtlNanos;
+
+    private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * 持久化存储，为 null 时仅保存在内存中
+     */
+    private final AppendableChatMemoryRepository repository;
+
+    /**
+     * 摘要器，为 null 时移出窗口的消息直接丢弃
+     */
+    private final ConversationSummarizer summarizer;
+
+    private final TokenCountEstimator tokenEstimator = new JTokkitTokenCountEstimator();
+
+    private final Counter idleEvictions;
+    private final Counter capacityEvictions;
+    private final Counter budgetTrimmed;
+
+    public RingBufferChatMemory(MemoryProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, null, null);
+    }
+
+    public RingBufferChatMemory(MemoryProperties properties, MeterRegistry meterRegistry,
+                                AppendableChatMemoryRepository repository, ConversationSummarizer summarizer) {
+        this.repository = repository;
+        this.summarizer = summarizer;
+        if (properties.getMaxMessages() <= 0) {
+            throw new IllegalArgumentException("maxMessages 必须大于 0");
+        }
+        this.maxMessages = properties.getMaxMessages();
+        this.maxTokens = properties.getMaxTokens() > 0 ? properties.getMaxTokens() : Integer.MAX_VALUE;
+        this.maxConversations = properties.getMaxConversations();
+        this.idleTtlNanos = properties.getIdleTtl().toNanos();
+
+        Gauge.builder("lang2file.memory.conversations", conversations, Map::size)
+                .register(meterRegistry);
+        this.idleEvictions = Counter.builder("lang2file.memory.evictions")
+                .tag("reason", "idle").register(meterRegistry);
+        this.capacityEvictions = Counter.builder("lang2file.memory.evictions")
+                .tag("reason", "capacity").register(meterRegistry);
+        this.budgetTrimmed = Counter.builder("lang2file.memory.trimmed.messages")
+                .tag("reason", "tokens").register(meterRegistry);
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("chat-memory-sweeper").daemon(true).factory());
+        long interval = properties.getSweepInterval().toMillis();
+        sweeper.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void add(@NonNull String conversationId, @NonNull List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        int[] tokens = countTokens(messages);
+        Consumer<List<Message>> sink = repository == null ? null : batch -> repository.append(conversationId, batch);
+        boolean[] created = new boolean[1];
+        Conversation conversation;
+        do {
+            // 取出后到加锁追加之间会话可能被淘汰或清空，此时追加失败，重新获取
+            conversation = conversations.computeIfAbsent(conversationId, id -> {
+                created[0] = true;
+                return load(id);
+            });
+        } while (!conversation.append(messages, tokens, sink, summarizer != null));
+        scheduleSummary(conversationId, conversation);
+
+        if (created[0] && conversations.size() > maxConversations) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    @Override
+    public @NonNull List<Message> get(@NonNull String conversationId) {
+        Conversation conversation = conversations.get(conversationId);
+        if (conversation == null && repository != null) {
+            conversation = conversations.computeIfAbsent(conversationId, this::load);
+        }
+        return conversation == null ? List.of() : conversation.snapshot();
+    }
+
+    @Override
+    public void clear(@NonNull String conversationId) {
+        Conversation removed = conversations.remove(conversationId);
+        if (removed != null) {
+            removed.markCleared();
+        }
+        if (repository != null) {
+            repository.deleteByConversationId(conversationId);
+        }
+    }
+
+    /**
+     * 创建会话缓冲区，配置了持久化存储时从存储中加载最近的消息。
+     */
+    private Conversation load(String conversationId) {
+        Conversation conversation = new Conversation();
+        if (repository != null) {
+            repository.findSummary(conversationId)
+                    .ifPresent(summary -> conversation.applySummary(summary, countTokens(summary), null));
+            List<Message> stored = repository.findByConversationId(conversationId);
+            if (!stored.isEmpty()) {
+                // 存储中超出预算的消息此前已经摘要过，不再重复摘要
+                conversation.append(stored, countTokens(stored), null, false);
+                log.debug("从存储中恢复会话 {}，消息 {} 条", conversationId, stored.size());
+            }
+        }
+        return conversation;
+    }
+
+    /**
+     * 会话有待摘要的消息且没有进行中的摘要任务时，提交一次摘要。
+     */
+    private void scheduleSummary(String conversationId, Conversation conversation) {
+        if (summarizer == null) {
+            return;
+        }
+        List<Message> batch;
+        String previous;
+        conversation.lock.lock();
+        try {
+            if (conversation.summarizing || conversation.cleared || conversation.pending.isEmpty()) {
+                return;
+            }
+            batch = conversation.pending;
+            conversation.pending = new ArrayList<>();
+            previous = conversation.summary;
+            conversation.summarizing = true;
+        } finally {
+            conversation.lock.unlock();
+        }
+        summarizer.summarize(previous, batch).whenComplete((summary, error) -> {
+            if (error != null) {
+                log.warn("会话 {} 的摘要生成失败，丢弃移出的 {} 条消息: {}", conversationId, batch.size(), error.getMessage());
+            } else {
+                conversation.applySummary(summary, countTokens(summary),
+                        repository == null ? null : text -> repository.saveSummary(conversationId, text));
+                log.debug("会话 {} 的摘要已更新，合并消息 {} 条", conversationId, batch.size());
+            }
+            conversation.lock.lock();
+            try {
+                conversation.summarizing = false;
+            } finally {
+                conversation.lock.unlock();
+            }
+            // 摘要期间可能又有消息移出
+            scheduleSummary(conversationId, conversation);
+        });
+    }
+
+    /**
+     * 逐条估算消息的 token 数，在会话锁之外执行。
+     */
+    private int[] countTokens(List<Message> messages) {
+        int[] tokens = new int[messages.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = countTokens(messages.get(i).getText());
+        }
+        return tokens;
+    }
+
+    private int countTokens(String text) {
+        return text == null || text.isEmpty() ? 0 : tokenEstimator.estimate(text);
+    }
+
+    /**
+     * 当前保留的会话数量。
+     */
+    public int conversationCount() {
+        return conversations.size();
+    }
+
+    /**
+     * 清理空闲超时的会话。
+     */
+    void evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<String, Conversation> entry : conversations.entrySet()) {
+            Conversation conversation = entry.getValue();
+            if (now - conversation.lastAccess > idleTtlNanos
+                    && evict(entry.getKey(), conversation, () -> now - conversation.lastAccess > idleTtlNanos)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            idleEvictions.increment(evicted);
+            log.debug("清理空闲会话 {} 个，剩余 {} 个", evicted, conversations.size());
+        }
+    }
+
+    /**
+     * 会话数超过上限时，淘汰最久未访问的会话。
+     */
+    private synchronized void evictLeastRecentlyUsed() {
+        if (conversations.size() <= maxConversations) {
+            // 其他线程已完成淘汰
+            return;
+        }
+        int excess = conversations.size() - (int) (maxConversations * CAPACITY_EVICTION_TARGET);
+        // 先固定访问时间再排序，避免排序过程中访问时间被并发修改
+        List<Candidate> candidates = new ArrayList<>(conversations.size());
+        conversations.forEach((id, conversation) -> candidates.add(new Candidate(id, conversation, conversation.lastAccess)));
+        candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+        int evicted = 0;
+        for (int i = 0; i < excess && i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            if (evict(candidate.id(), candidate.conversation(), () -> true)) {
+                evicted++;
+            }
+        }
+        capacityEvictions.increment(evicted);
+        log.debug("会话数超过上限 {}，淘汰最久未访问的会话 {} 个", maxConversations, evicted);
+    }
+
+    /**
+     * 在会话锁内再次确认条件，标记为已淘汰并从表中移除，之后的追加会失败并重新获取会话，不会写入已移除的缓冲区。
+     * 会话正被其他线程使用时放弃本次淘汰。
+     */
+    private boolean evict(String conversationId, Conversation conversation, BooleanSupplier condition) {
+        if (!conversation.lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (conversation.evicted || !condition.getAsBoolean()
+                    || !conversations.remove(conversationId, conversation)) {
+                return false;
+            }
+            conversation.evicted = true;
+            return true;
+        } finally {
+            conversation.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    private record Candidate(String id, Conversation conversation, long lastAccess) {
+    }
+
+    /**
+     * 单个会话：固定容量的环形缓冲区，由 {@link #lock} 保护。
+     * <p>
+     * 追加消息时在锁内同步写入存储（可能刷盘或等待组提交），使用 {@link ReentrantLock} 而非监视器锁，
+     * 虚拟线程在持锁阻塞期间不会占用载体线程。
+     * </p>
+     */
+    private final class Conversation {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Message[] ring = new Message[maxMessages];
+        /**
+         * 与 {@link #ring} 对应位置消息的 token 数
+         */
+        private final int[] tokens = new int[maxMessages];
+        private int totalTokens;
+        /**
+         * 滚动摘要及其 token 数，为 null 表示尚无摘要
+         */
+        private String summary;
+        private int summaryTokens;
+        /**
+         * 已移出窗口、等待摘要的消息
+         */
+        private List<Message> pending = new ArrayList<>();
+        private boolean summarizing;
+        private boolean cleared;
+        /**
+         * 已从会话表中移除（淘汰或清空），不再接受追加
+         */
+        private boolean evicted;
+        /**
+         * 最旧消息所在位置
+         */
+        private int head;
+        private int size;
+        private volatile long lastAccess = System.nanoTime();
+
+        /**
+         * 追加消息；{@code sink} 不为 null 时在同一把锁内同步写入存储，保证存储中的顺序与内存一致。
+         * {@code collect} 为 true 时，移出窗口的消息加入待摘要列表。
+         *
+         * @return 会话已被淘汰或清空时不追加，返回 false
+         */
+        boolean append(List<Message> messages, int[] messageTokens, Consumer<List<Message>> sink, boolean collect) {
+            lock.lock();
+            try {
+                if (evicted) {
+                    return false;
+                }
+                if (sink != null) {
+                    sink.accept(messages);
+                }
+                for (int i = 0; i < messageTokens.length; i++) {
+                    if (size == ring.length) {
+                        // 缓冲区已满，移出最旧的消息
+                        evictOldest(collect);
+                    }
+                    int tail = (head + size) % ring.length;
+                    ring[tail] = messages.get(i);
+                    tokens[tail] = messageTokens[i];
+                    totalTokens += messageTokens[i];
+                    size++;
+                }
+                trimToBudget(collect);
+                lastAccess = System.nanoTime();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 替换滚动摘要；会话已被清空时忽略。{@code sink} 不为 null 时在同一把锁内写入存储。
+         */
+        void applySummary(String text, int tokens, Consumer<String> sink) {
+            lock.lock();
+            try {
+                if (cleared) {
+                    return;
+                }
+                if (sink != null) {
+                    sink.accept(text);
+                }
+                summary = text;
+                summaryTokens = tokens;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void markCleared() {
+            lock.lock();
+            try {
+                cleared = true;
+                evicted = true;
+                pending = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 超出 token 预算时整轮移出最旧的消息，始终保留最新一条。
+         */
+        private void trimToBudget(boolean collect) {
+            int trimmed = 0;
+            while (totalTokens + summaryTokens > maxTokens && size > 1) {
+                evictOldest(collect);
+                trimmed++;
+                // 不以孤立的助手/工具消息开头
+                while (size > 1 && ring[head].getMessageType() != MessageType.USER
+                        && ring[head].getMessageType() != MessageType.SYSTEM) {
+                    evictOldest(collect);
+                    trimmed++;
+                }
+            }
+            if (trimmed > 0) {
+                budgetTrimmed.increment(trimmed);
+            }
+        }
+
+        private void evictOldest(boolean collect) {
+            if (collect) {
+                pending.add(ring[head]);
+            }
+            totalTokens -= tokens[head];
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+        }
+
+        List<Message> snapshot() {
+            lock.lock();
+            try {
+                lastAccess = System.nanoTime();
+                List<Message> result = new ArrayList<>(size + 1);
+                if (summary != null) {
+                    result.add(new SystemMessage(SUMMARY_PREFIX + summary));
+                }
+                for (int i = 0; i < size; i++) {
+                    result.add(ring[(head + i) % ring.length]);
+                }
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,88 +1,59 @@
 package yuuine.lang2file.agent.service;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.tool.ToolCallbackProvider;
-import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.stereotype.Component;
-import yuuine.lang2file.agent.dto.ToolMeta;
-import yuuine.lang2file.agent.dto.ToolRegistry;
 
+/**
+ * 聊天客户端工厂。
+ * <p>
+ * {@link ChatClient} 及其 Advisor 链是线程安全的，因此按配置只构建一次、长期复用：
+ * <ul>
+ *   <li>无记忆、无工具：用于任务分类、工具选择等一次性调用。</li>
+ *   <li>有记忆：会话ID与工具均作为单次请求参数传入，不再为每个请求构建客户端和 Advisor。</li>
+ * </ul>
+ * 模型调用的并发限流在 HTTP 层完成（见 {@code ConcurrencyLimitInterceptor}），客户端无需额外挂载 Advisor。
+ * </p>
+ */
 @Component
-@RequiredArgsConstructor
 public class ChatClientFactory {
 
-    private final ChatModel chatModel;
-    private final ChatMemory chatMemory;
-    private final ToolRegistry toolRegistry;
+    /**
+     * 无记忆、无工具
+     */
+    private final ChatClient statelessClient;
 
-    // 无工具、无记忆
-    public ChatClient createClientWithoutMemoryAndTools() {
-        return ChatClient.builder(chatModel).build();
-    }
-
-    // 有记忆、有工具（默认全局工具）（使用默认会话ID）默认构造器
-    public ChatClient createDefaultClient() {
+    /**
+     * 有记忆（会话ID按请求传入），工具按请求传入
+     */
+    private final ChatClient memoryClient;
 
-        ToolCallbackProvider toolCallbackProvider = MethodToolCallbackProvider.builder()
-                .toolObjects(toolRegistry.getAll().stream()
-                        .map(ToolMeta::getBean).distinct().toArray())
+    public ChatClientFactory(ChatModel chatModel, ChatMemory chatMemory) {
+        this.statelessClient = ChatClient.builder(chatModel)
                 .build();
-
-        return ChatClient.builder(chatModel)
-                .defaultAdvisors(
-                        MessageChatMemoryAdvisor.builder(chatMemory)
-                                .conversationId("default-session")
-                                .build())
-                .defaultToolCallbacks(toolCallbackProvider)
-                .build();
-    }
-
-    // 有记忆、有工具（自定义工具）
-    public ChatClient createClient(ToolCallbackProvider toolCallbackProvider) {
-        return ChatClient.builder(chatModel)
-                .defaultAdvisors(
-                        MessageChatMemoryAdvisor.builder(chatMemory).build())
-                .defaultToolCallbacks(toolCallbackProvider)
+        this.memoryClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
                 .build();
     }
 
-    // 有记忆、有工具（指定会话ID）
-    public ChatClient createClientWithSession(String sessionId, ToolCallbackProvider toolCallbackProvider) {
-        ChatClient.Builder builder = ChatClient.builder(chatModel);
-        if (sessionId != null) {
-            builder.defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory)
-                    .conversationId(sessionId)
-                    .build());
-        }
-        if (toolCallbackProvider != null) {
-            builder.defaultToolCallbacks(toolCallbackProvider);
-        }
-        return builder.build();
-    }
-
-    // 仅工具、无记忆
-    public ChatClient createClientWithoutMemory(ToolCallbackProvider toolCallbackProvider) {
-        return ChatClient.builder(chatModel)
-                .defaultToolCallbacks(toolCallbackProvider)
-                .build();
+    // 无工具、无记忆
+    public ChatClient statelessClient() {
+        return statelessClient;
     }
 
-    // 有记忆，无工具
-    public ChatClient createClientWithoutTools(String sessionId) {
-        return ChatClient.builder(chatModel)
-                .defaultAdvisors(
-                        MessageChatMemoryAdvisor.builder(chatMemory)
-                                .conversationId(sessionId)
-                                .build())
-                .build();
+    // 有记忆、无工具（指定会话ID）
+    public ChatClient.ChatClientRequestSpec promptWithMemory(String conversationId) {
+        return memoryClient.prompt()
+                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId));
     }
 
-    // 允许完全自定义
-    public ChatClient createCustomClient(ChatClient.Builder customBuilder) {
-        return customBuilder.build();
+    // 有记忆、有工具（指定会话ID与本次请求可用的工具）
+    public ChatClient.ChatClientRequestSpec promptWithMemoryAndTools(String conversationId,
+                                                                     ToolCallbackProvider toolCallbackProvider) {
+        return promptWithMemory(conversationId)
+                .toolCallbacks(toolCallbackProvider);
     }
-}
\ No newline at end of file
+}
@@ -2,35 +2,63 @@ package yuuine.lang2file.agent.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.StaticToolCallbackProvider;
 import org.springframework.ai.tool.ToolCallbackProvider;
-import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.stereotype.Component;
 import yuuine.lang2file.agent.dto.ToolMeta;
 
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * 动态工具提供者工厂。
+ * <p>
+ * 使用注册阶段预先构建的 {@link ToolMeta#getToolCallback()} 组合出工具提供者，
+ * 并按选中工具名称的有序集合缓存，相同工具组合的请求直接复用。
+ * </p>
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class DynamicToolProviderFactory {
 
+    /**
+     * 缓存的工具组合数量上限，超出后不再缓存新组合（组合本身开销很小）
+     */
+    private static final int MAX_CACHED_PROVIDERS = 256;
+
+    private final Map<String, ToolCallbackProvider> providerCache = new ConcurrentHashMap<>();
+
     public ToolCallbackProvider build(List<ToolMeta> metas) {
 
-        log.debug("开始构建工具提供者: {}", metas);
+        List<ToolMeta> sorted = metas.stream()
+                .sorted(Comparator.comparing(ToolMeta::getName))
+                .distinct()
+                .toList();
+        String key = sorted.stream()
+                .map(ToolMeta::getName)
+                .collect(Collectors.joining(","));
+
+        ToolCallbackProvider cached = providerCache.get(key);
+        if (cached != null) {
+            log.debug("复用缓存的工具提供者: [{}]", key);
+            return cached;
+        }
 
-        Set<Object> uniqueBeans = metas.stream()
-                .map(ToolMeta::getBean)
-                .collect(Collectors.toSet());
+        log.debug("开始构建工具提供者: [{}]", key);
 
-        log.debug("工具提供者构建完成: {}", uniqueBeans);
+        ToolCallbackProvider provider = new StaticToolCallbackProvider(
+                sorted.stream().map(ToolMeta::getToolCallback).toList());
 
-        ToolCallbackProvider provider = MethodToolCallbackProvider.builder()
-                .toolObjects(uniqueBeans.toArray())
-                .build();
+        if (providerCache.size() < MAX_CACHED_PROVIDERS) {
+            providerCache.putIfAbsent(key, provider);
+        }
 
+        log.debug("工具提供者构建完成: [{}]", key);
         return provider;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,121 @@
+package yuuine.lang2file.agent.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import yuuine.lang2file.agent.dto.RouteDecision;
+import yuuine.lang2file.agent.limiter.ModelBusyException;
+import yuuine.lang2file.agent.dto.ToolRegistry;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 融合路由服务：通过一次结构化 LLM 调用同时完成任务分类与工具选择。
+ * <p>
+ * 顺序模式下，规则无法判定的输入需要先调用一次 LLM 分类，再调用一次 LLM 选择工具；
+ * 融合模式将两者合并为一次调用，返回 {@code {isTask, tools[]}}。
+ * <p>
+ * 流程：
+ * 1. 规则命中 → 直接采用规则结果，任务型输入交由 {@link ToolRouterService} 选择工具
+ * 2. 分类缓存命中 → 同上
+ * 3. 其他情况 → 一次 LLM 调用返回分类与工具，分类结果写入缓存（相同输入的并发调用合并为一次）
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FusedRouterService {
+
+    /**
+     * 融合提示词：要求模型同时判断是否为任务型对话，并从工具列表中选择工具
+     */
+    private static final String FUSED_ROUTER_PROMPT = """
+            You are a router for an assistant that operates on the local file system and a few utility tools.
+
+            Step 1: decide whether the user input is a task-oriented dialogue. A task-oriented dialogue is a request that asks the system to perform a specific action, provide a service, or fulfill a concrete goal. It does NOT include casual chitchat, greetings, expressions of emotion, or statements without an explicit request.
+
+            Step 2: if it is a task, select the tools relevant to the input from the tool list below (name : description). Select at least one tool when any tool is relevant; otherwise return an empty list. If it is not a task, return an empty list.
+
+            Tool list:
+            %s
+            """;
+
+    private final ChatClientFactory clientFactory;
+    private final ToolRegistry toolRegistry;
+    private final TaskChatRouterService taskRouter;
+    private final ToolRouterService toolRouter;
+    private final TaskDecisionCache decisionCache;
+    private final LlmRequestCoalescer coalescer;
+
+    /**
+     * 对用户输入进行路由。
+     *
+     * @param userInput 用户输入
+     * @return 路由决策
+     */
+    public RouteDecision route(String userInput) {
+        Optional<Boolean> ruleResult = taskRouter.classifyByRules(userInput);
+        if (ruleResult.isPresent()) {
+            return ruleResult.get() ? RouteDecision.task(toolRouter.selectTools(userInput)) : RouteDecision.nonTask();
+        }
+
+        Boolean cached = decisionCache.get(userInput);
+        if (cached != null) {
+            return cached ? RouteDecision.task(toolRouter.selectTools(userInput)) : RouteDecision.nonTask();
+        }
+
+        final String trimmed = userInput.trim();
+        return coalescer.execute(LlmRequestCoalescer.Stage.FUSED, trimmed, () -> callFusedLlm(trimmed));
+    }
+
+    /**
+     * 调用 LLM 同时完成分类与工具选择，异常时降级为非任务（保守策略）。
+     *
+     * @param input 用户输入
+     * @return 路由决策
+     */
+    private RouteDecision callFusedLlm(String input) {
+        try {
+            FusedResult result = clientFactory.statelessClient()
+                    .prompt()
+                    .system(FUSED_ROUTER_PROMPT.formatted(toolRegistry.describeTools()))
+                    .user(input)
+                    .call()
+                    .entity(FusedResult.class);
+
+            if (result == null || result.isTask() == null) {
+                log.warn("融合路由返回结果无效，降级为非任务: {}", result);
+                return RouteDecision.nonTask();
+            }
+
+            decisionCache.put(input, result.isTask());
+            if (!result.isTask()) {
+                log.debug("融合路由判定为非任务");
+                return RouteDecision.nonTask();
+            }
+
+            List<String> tools = result.tools() == null ? List.of() : result.tools().stream().distinct().toList();
+            log.debug("融合路由判定为任务，选择工具: {}", tools);
+            return RouteDecision.task(tools);
+
+        } catch (ModelBusyException e) {
+            // 繁忙时快速失败，不降级为非任务
+            throw e;
+        } catch (Exception e) {
+            log.error("融合路由调用LLM失败，降级为非任务", e);
+            return RouteDecision.nonTask();
+        }
+    }
+
+    /**
+     * 融合路由的结构化输出。
+     *
+     * @param isTask 是否为任务型对话
+     * @param tools  选中的工具名称
+     */
+    private record FusedResult(Boolean isTask, List<String> tools) {
+    }
+}
@@ -0,0 +1,78 @@
+package yuuine.lang2file.agent.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import yuuine.lang2file.config.RouterProperties;
+import yuuine.lang2file.util.SingleFlight;
+import yuuine.lang2file.util.TextUtil;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 路由阶段 LLM 请求合并器。
+ * <p>
+ * 任务分类、工具选择与融合路由都是无状态调用，结果只取决于用户输入。
+ * 以归一化后的用户输入为键，对并发到达的相同输入只发起一次 LLM 调用，其余请求等待并共享结果。
+ * <p>
+ * 各阶段的合并情况注册为监控指标 {@code lang2file.router.singleflight.*}，
+ * 其中 {@code role=follower} 的计数即被合并掉的 LLM 调用次数。
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Component
+public class LlmRequestCoalescer {
+
+    /**
+     * 可合并的路由阶段
+     */
+    public enum Stage {
+        CLASSIFY, SELECT, FUSED
+    }
+
+    private final boolean enabled;
+    private final Map<Stage, SingleFlight<String, Object>> flights = new EnumMap<>(Stage.class);
+
+    public LlmRequestCoalescer(RouterProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isSingleFlight();
+        for (Stage stage : Stage.values()) {
+            SingleFlight<String, Object> flight = new SingleFlight<>();
+            flights.put(stage, flight);
+
+            String tag = stage.name().toLowerCase(Locale.ROOT);
+            FunctionCounter.builder("lang2file.router.singleflight.requests", flight, SingleFlight::leaderCount)
+                    .tag("stage", tag)
+                    .tag("role", "leader")
+                    .register(meterRegistry);
+            FunctionCounter.builder("lang2file.router.singleflight.requests", flight, SingleFlight::followerCount)
+                    .tag("stage", tag)
+                    .tag("role", "follower")
+                    .register(meterRegistry);
+            Gauge.builder("lang2file.router.singleflight.inflight", flight, SingleFlight::inFlightCount)
+                    .tag("stage", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 执行某个阶段的 LLM 调用，相同归一化输入的并发调用合并为一次。
+     *
+     * @param stage     路由阶段
+     * @param userInput 用户输入（原始文本）
+     * @param call      实际调用
+     * @param <V>       结果类型，合并后的结果会被多个调用方共享，应为不可变对象
+     * @return 调用结果
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(Stage stage, String userInput, Supplier<V> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        return (V) flights.get(stage).execute(TextUtil.normalize(userInput), (Supplier<Object>) call);
+    }
+}
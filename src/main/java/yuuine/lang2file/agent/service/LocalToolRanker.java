@@ -0,0 +1,197 @@
+package yuuine.lang2file.agent.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Component;
+import yuuine.lang2file.agent.dto.ToolMeta;
+import yuuine.lang2file.agent.dto.ToolRegistry;
+import yuuine.lang2file.config.RouterProperties;
+import yuuine.lang2file.util.TextUtil;
+
+import java.lang.reflect.Parameter;
+import java.util.*;
+
+/**
+ * 本地工具检索器，基于 BM25 算法在进程内对工具进行排序。
+ * <p>
+ * 启动时根据 {@link ToolRegistry} 中的工具名称、描述以及 {@link ToolParam} 参数说明构建倒排索引，
+ * 请求时对用户输入分词后打分，无需调用 LLM 即可选出相关工具。
+ * <p>
+ * 同时给出置信度（0~1），供 {@link ToolRouterService} 决定是否回退到 LLM 选择。
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class LocalToolRanker {
+
+    /**
+     * BM25 词频饱和参数
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * BM25 文档长度归一化参数
+     */
+    private static final double B = 0.75;
+
+    private final RouterProperties.Local config;
+
+    /**
+     * 文档编号 → 工具名称
+     */
+    private final String[] toolNames;
+
+    /**
+     * 文档编号 → 文档长度（词数）
+     */
+    private final int[] docLengths;
+
+    /**
+     * 词项 → 倒排列表
+     */
+    private final Map<String, Posting[]> postings;
+
+    /**
+     * 词项 → 逆文档频率
+     */
+    private final Map<String, Double> idf;
+
+    private final double avgDocLength;
+
+    /**
+     * 根据工具注册中心构建索引（仅在启动时执行一次）。
+     *
+     * @param registry   工具注册中心
+     * @param properties 路由配置
+     */
+    public LocalToolRanker(ToolRegistry registry, RouterProperties properties) {
+        this.config = properties.getLocal();
+
+        List<ToolMeta> metas = new ArrayList<>(registry.getAll());
+        metas.sort(Comparator.comparing(ToolMeta::getName));
+
+        int docCount = metas.size();
+        this.toolNames = new String[docCount];
+        this.docLengths = new int[docCount];
+
+        Map<String, List<Posting>> builder = new HashMap<>();
+        long totalLength = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            ToolMeta meta = metas.get(doc);
+            List<String> tokens = TextUtil.tokenize(documentText(meta));
+            toolNames[doc] = meta.getName();
+            docLengths[doc] = tokens.size();
+            totalLength += tokens.size();
+
+            Map<String, Integer> termFreq = new HashMap<>();
+            tokens.forEach(t -> termFreq.merge(t, 1, Integer::sum));
+            final int docId = doc;
+            termFreq.forEach((term, tf) ->
+                    builder.computeIfAbsent(term, k -> new ArrayList<>()).add(new Posting(docId, tf)));
+        }
+
+        this.avgDocLength = docCount == 0 ? 0 : (double) totalLength / docCount;
+        this.postings = new HashMap<>();
+        this.idf = new HashMap<>();
+        builder.forEach((term, list) -> {
+            postings.put(term, list.toArray(Posting[]::new));
+            double df = list.size();
+            idf.put(term, Math.log(1 + (docCount - df + 0.5) / (df + 0.5)));
+        });
+
+        log.info("本地工具索引构建完成: 工具数={}, 词项数={}", docCount, postings.size());
+    }
+
+    /**
+     * 对用户输入进行打分排序，选出相关工具。
+     *
+     * @param userInput 用户输入
+     * @return 排序结果（工具名称按得分降序）及置信度
+     */
+    public Ranking rank(String userInput) {
+        Set<String> queryTerms = new LinkedHashSet<>(TextUtil.tokenize(userInput));
+        double[] scores = new double[toolNames.length];
+        double idealScore = 0;
+
+        for (String term : queryTerms) {
+            Posting[] list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            double termIdf = idf.get(term);
+            idealScore += termIdf;
+            for (Posting posting : list) {
+                double norm = K1 * (1 - B + B * docLengths[posting.doc()] / avgDocLength);
+                scores[posting.doc()] += termIdf * posting.tf() * (K1 + 1) / (posting.tf() + norm);
+            }
+        }
+
+        if (idealScore == 0) {
+            return new Ranking(List.of(), 0);
+        }
+
+        Integer[] order = new Integer[toolNames.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        double top = scores[order[0]];
+        double cutoff = top * config.getRelativeCutoff();
+        List<String> selected = new ArrayList<>();
+        int candidates = 0;
+        for (int doc : order) {
+            if (scores[doc] <= 0 || scores[doc] < cutoff) {
+                break;
+            }
+            candidates++;
+            if (selected.size() < config.getMaxTools()) {
+                selected.add(toolNames[doc]);
+            }
+        }
+
+        // 置信度：最高分相对理想得分的比例；候选过多说明区分度不足，按比例降低
+        double confidence = Math.min(1.0, top / idealScore);
+        if (candidates > config.getMaxTools()) {
+            confidence *= (double) config.getMaxTools() / candidates;
+        }
+
+        log.debug("本地工具排序: 候选={}, 置信度={}", selected, String.format("%.3f", confidence));
+        return new Ranking(selected, confidence);
+    }
+
+    /**
+     * 拼接工具的可检索文本：名称、描述及参数说明。
+     */
+    private static String documentText(ToolMeta meta) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(meta.getName()).append(' ').append(meta.getDescription());
+        for (Parameter parameter : meta.getMethod().getParameters()) {
+            ToolParam param = parameter.getAnnotation(ToolParam.class);
+            if (param != null) {
+                sb.append(' ').append(param.description());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 倒排列表项。
+     *
+     * @param doc 文档编号
+     * @param tf  词频
+     */
+    private record Posting(int doc, int tf) {
+    }
+
+    /**
+     * 本地排序结果。
+     *
+     * @param toolNames  选中的工具名称（按得分降序）
+     * @param confidence 置信度（0~1）
+     */
+    public record Ranking(List<String> toolNames, double confidence) {
+    }
+}
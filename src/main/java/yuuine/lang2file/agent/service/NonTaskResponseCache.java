@@ -0,0 +1,205 @@
+package yuuine.lang2file.agent.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import yuuine.lang2file.config.ResponseCacheProperties;
+import yuuine.lang2file.util.ExpiringLruCache;
+import yuuine.lang2file.util.TextUtil;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 非任务型对话（问候、闲聊）的响应缓存。
+ * <p>
+ * 以归一化后的用户输入为键缓存模型回复。近似匹配只用于问候语式的短输入（如“good morning everyone”），
+ * 这类条目另存于一个小容量缓存中，未精确命中时仅在其中按字符二元组的 Jaccard 相似度查找，且要求长度相近。
+ * 其他输入只能精确命中：仅相差一个实体的输入（如“my name is alice”与“my name is alina”）相似度同样很高，
+ * 回复却因人而异，不能复用。仅对没有历史记录的会话生效，依赖上下文的回复永远不会从缓存返回。
+ * <p>
+ * 命中时将本轮问答写入会话记忆，与实际调用模型时 {@code MessageChatMemoryAdvisor} 的行为保持一致。
+ * <p>
+ * 命中（按精确/相似区分）、未命中次数及缓存大小注册为监控指标 {@code lang2file.chat.response.cache.*}。
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class NonTaskResponseCache {
+
+    private final ResponseCacheProperties properties;
+    private final ChatMemory chatMemory;
+    // 问候语式输入最大长度（去除空格后的字符数）
+    private static final int GREETING_MAX_LENGTH = 24;
+    // 问候语式条目的容量，近似匹配时逐条比较
+    private static final int GREETING_CAPACITY = 64;
+    // 近似匹配允许的长度差（去除空格后的字符数）
+    private static final int MAX_LENGTH_DIFFERENCE = 1;
+
+    private final ExpiringLruCache<String, CachedReply> cache;
+    // 可参与近似匹配的问候语式条目
+    private final ExpiringLruCache<String, CachedReply> greetings;
+
+    private final Counter exactHits;
+    private final Counter similarHits;
+    private final Counter misses;
+
+    public NonTaskResponseCache(ResponseCacheProperties properties, ChatMemory chatMemory, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.chatMemory = chatMemory;
+        this.cache = new ExpiringLruCache<>(properties.getMaxSize(), properties.getTtl());
+        this.greetings = new ExpiringLruCache<>(Math.min(properties.getMaxSize(), GREETING_CAPACITY), properties.getTtl());
+
+        this.exactHits = Counter.builder("lang2file.chat.response.cache.requests")
+                .tag("result", "hit").tag("match", "exact").register(meterRegistry);
+        this.similarHits = Counter.builder("lang2file.chat.response.cache.requests")
+                .tag("result", "hit").tag("match", "similar").register(meterRegistry);
+        this.misses = Counter.builder("lang2file.chat.response.cache.requests")
+                .tag("result", "miss").tag("match", "none").register(meterRegistry);
+        FunctionCounter.builder("lang2file.chat.response.cache.evictions", cache, ExpiringLruCache::evictionCount)
+                .register(meterRegistry);
+        Gauge.builder("lang2file.chat.response.cache.size", cache, ExpiringLruCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 判断本轮输入是否可以使用缓存，必须在调用模型之前判断（调用后会话中已有历史记录）。
+     *
+     * @param conversationId 会话ID
+     * @param userInput      用户输入
+     * @return 缓存已启用、输入足够短且会话没有历史记录时返回 true
+     */
+    public boolean isCacheable(String conversationId, String userInput) {
+        if (!properties.isEnabled() || !StringUtils.hasText(userInput)) {
+            return false;
+        }
+        String normalized = TextUtil.normalize(userInput);
+        if (normalized.isEmpty() || normalized.length() > properties.getMaxInputLength()) {
+            return false;
+        }
+        return chatMemory.get(conversationId).isEmpty();
+    }
+
+    /**
+     * 查询缓存的回复，命中时将本轮问答写入会话记忆。
+     *
+     * @param conversationId 会话ID
+     * @param userInput      用户输入
+     * @return 缓存的回复
+     */
+    public Optional<String> get(String conversationId, String userInput) {
+        String normalized = TextUtil.normalize(userInput);
+
+        CachedReply reply = cache.get(normalized);
+        if (reply != null) {
+            exactHits.increment();
+        } else if (isGreeting(normalized)) {
+            String compact = compact(normalized);
+            Set<String> grams = bigrams(compact);
+            reply = greetings.findBest(candidate -> similarity(compact, grams, candidate),
+                    properties.getSimilarityThreshold());
+            if (reply != null) {
+                similarHits.increment();
+            }
+        }
+
+        if (reply == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        log.debug("命中闲聊响应缓存: [{}]", normalized);
+        chatMemory.add(conversationId, List.of(new UserMessage(userInput), new AssistantMessage(reply.text())));
+        return Optional.of(reply.text());
+    }
+
+    /**
+     * 缓存模型的回复。
+     *
+     * @param userInput 用户输入
+     * @param reply     模型回复
+     */
+    public void put(String userInput, String reply) {
+        if (!StringUtils.hasText(reply)) {
+            return;
+        }
+        String normalized = TextUtil.normalize(userInput);
+        String compact = compact(normalized);
+        CachedReply cached = new CachedReply(reply, compact.length(), bigrams(compact));
+        cache.put(normalized, cached);
+        if (isGreeting(normalized)) {
+            greetings.put(normalized, cached);
+        }
+    }
+
+    /**
+     * 是否为可参与近似匹配的问候语式短输入。
+     */
+    private static boolean isGreeting(String normalized) {
+        return compact(normalized).length() <= GREETING_MAX_LENGTH
+                && TaskRuleMatcher.match(normalized) == TaskRuleMatcher.Verdict.GREETING;
+    }
+
+    /**
+     * 近似匹配的得分：长度相差过大时为 0，否则为字符二元组的 Jaccard 相似度。
+     */
+    private static double similarity(String compact, Set<String> grams, CachedReply candidate) {
+        if (Math.abs(compact.length() - candidate.length()) > MAX_LENGTH_DIFFERENCE) {
+            return 0;
+        }
+        return jaccard(grams, candidate.grams());
+    }
+
+    private static String compact(String normalized) {
+        return normalized.replace(" ", "");
+    }
+
+    /**
+     * 去除空格后文本的字符二元组，单字符文本返回其本身。
+     */
+    private static Set<String> bigrams(String compact) {
+        Set<String> grams = new HashSet<>();
+        if (compact.length() < 2) {
+            grams.add(compact);
+            return grams;
+        }
+        for (int i = 0; i + 2 <= compact.length(); i++) {
+            grams.add(compact.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        int intersection = 0;
+        for (String gram : a) {
+            if (b.contains(gram)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
+    /**
+     * 缓存的回复。
+     *
+     * @param text   回复文本
+     * @param length 对应输入去除空格后的长度
+     * @param grams  对应输入的字符二元组，用于近似匹配
+     */
+    private record CachedReply(String text, int length, Set<String> grams) {
+    }
+}
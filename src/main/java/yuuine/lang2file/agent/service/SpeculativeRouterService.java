@@ -0,0 +1,108 @@
+package yuuine.lang2file.agent.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import yuuine.lang2file.agent.dto.RouteDecision;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 推测式路由服务：任务分类与工具选择并行执行。
+ * <p>
+ * 对于规则和缓存都无法判定的输入，在虚拟线程上提前启动工具选择，同时调用 LLM 分类：
+ * <ul>
+ *   <li>判定为任务：等待工具选择结果，工具选择的耗时被分类耗时覆盖。</li>
+ *   <li>判定为非任务：取消工具选择并丢弃结果。工具选择经 {@link LlmRequestCoalescer} 合并，
+ *   取消只放弃本次等待；没有其他请求共享同一次调用时才会中断其中阻塞的 HTTP 请求。</li>
+ * </ul>
+ * 适用于大部分输入为任务型对话的场景，代价是非任务输入会多发起一次被取消的工具选择请求。
+ * </p>
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpeculativeRouterService {
+
+    private final TaskChatRouterService taskRouter;
+    private final ToolRouterService toolRouter;
+    private final TaskDecisionCache decisionCache;
+
+    /**
+     * 每个推测任务一个虚拟线程，阻塞在 HTTP 调用上不占用平台线程
+     */
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("speculative-router-", 0).factory());
+
+    /**
+     * 对用户输入进行路由。
+     *
+     * @param userInput 用户输入
+     * @return 路由决策
+     */
+    public RouteDecision route(String userInput) {
+        Optional<Boolean> ruleResult = taskRouter.classifyByRules(userInput);
+        if (ruleResult.isPresent()) {
+            return ruleResult.get() ? RouteDecision.task(toolRouter.selectTools(userInput)) : RouteDecision.nonTask();
+        }
+
+        Boolean cached = decisionCache.get(userInput);
+        if (cached != null) {
+            return cached ? RouteDecision.task(toolRouter.selectTools(userInput)) : RouteDecision.nonTask();
+        }
+
+        // 规则与缓存均无法判定：提前启动工具选择，与 LLM 分类并行执行
+        final String trimmed = userInput.trim();
+        Future<List<String>> selection = executor.submit(() -> toolRouter.selectTools(trimmed));
+
+        boolean isTask;
+        try {
+            isTask = taskRouter.classifyByLlm(trimmed);
+        } catch (RuntimeException e) {
+            selection.cancel(true);
+            throw e;
+        }
+
+        if (!isTask) {
+            boolean cancelled = selection.cancel(true);
+            log.debug("推测路由判定为非任务，丢弃工具选择结果（已取消: {}）", cancelled);
+            return RouteDecision.nonTask();
+        }
+
+        return RouteDecision.task(awaitSelection(selection));
+    }
+
+    /**
+     * 等待推测执行的工具选择结果。
+     */
+    private List<String> awaitSelection(Future<List<String>> selection) {
+        try {
+            List<String> tools = selection.get();
+            log.debug("推测路由判定为任务，选择工具: {}", tools);
+            return tools;
+        } catch (InterruptedException e) {
+            selection.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待工具选择结果时线程被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("工具选择失败", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,75 @@
+package yuuine.lang2file.agent.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import yuuine.lang2file.config.RouterProperties;
+import yuuine.lang2file.util.ExpiringLruCache;
+import yuuine.lang2file.util.TextUtil;
+
+/**
+ * 任务分类结果缓存，位于 {@link TaskChatRouterService} 的 LLM 兜底判断之前。
+ * <p>
+ * 以归一化后的用户输入（忽略大小写、空白与标点差异）为键，缓存 LLM 的分类结果，
+ * 重复或近似重复的输入无需再次调用模型。
+ * <p>
+ * 命中、未命中次数及缓存大小注册为监控指标 {@code lang2file.router.decision.cache.*}。
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class TaskDecisionCache {
+
+    private final boolean enabled;
+    private final ExpiringLruCache<String, Boolean> cache;
+
+    public TaskDecisionCache(RouterProperties properties, MeterRegistry meterRegistry) {
+        RouterProperties.DecisionCache config = properties.getDecisionCache();
+        this.enabled = config.isEnabled();
+        this.cache = new ExpiringLruCache<>(config.getMaxSize(), config.getTtl());
+
+        FunctionCounter.builder("lang2file.router.decision.cache.requests", cache, ExpiringLruCache::hitCount)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("lang2file.router.decision.cache.requests", cache, ExpiringLruCache::missCount)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("lang2file.router.decision.cache.evictions", cache, ExpiringLruCache::evictionCount)
+                .register(meterRegistry);
+        Gauge.builder("lang2file.router.decision.cache.size", cache, ExpiringLruCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询缓存的分类结果。
+     *
+     * @param userInput 用户输入（原始文本）
+     * @return 缓存的分类结果，未命中或缓存未启用时返回 null
+     */
+    public Boolean get(String userInput) {
+        if (!enabled) {
+            return null;
+        }
+        Boolean cached = cache.get(TextUtil.normalize(userInput));
+        if (cached != null) {
+            log.debug("命中分类缓存: {}（累计命中 {} / 未命中 {}）", cached, cache.hitCount(), cache.missCount());
+        }
+        return cached;
+    }
+
+    /**
+     * 记录分类结果。
+     *
+     * @param userInput 用户输入（原始文本）
+     * @param isTask    分类结果
+     */
+    public void put(String userInput, boolean isTask) {
+        if (enabled) {
+            cache.put(TextUtil.normalize(userInput), isTask);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package yuuine.lang2file.agent.service;
+
+import java.util.*;
+
+/**
+ * 任务分类规则匹配器，基于 Aho-Corasick 多模式自动机，一次扫描完成全部规则判断。
+ * <p>
+ * 替代原先的 {@code .*(动词).*(名词).*} 正则：正则在长输入上会产生大量回溯，
+ * 而自动机的扫描时间与输入长度成线性关系，且扫描过程不分配内存。
+ * <p>
+ * 规则语义：
+ * <ul>
+ *   <li>问候语：英文问候语要求单词边界（"hi" 不再匹配 "this"），中文问候语按子串匹配。</li>
+ *   <li>英文规则：动词在前、名词在后，二者均要求单词边界，不区分大小写。</li>
+ *   <li>中文规则：动词在前、名词在后。</li>
+ *   <li>简洁指令：动词与名词紧邻，如“删文件”、“新建文件夹”。</li>
+ * </ul>
+ * 命中问候语时优先判定为非任务，与原有规则的优先级保持一致。
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+final class TaskRuleMatcher {
+
+    /**
+     * 规则匹配结果
+     */
+    enum Verdict {
+        /**
+         * 命中问候语，判定为非任务
+         */
+        GREETING,
+        /**
+         * 命中正向文件操作规则，判定为任务
+         */
+        POSITIVE,
+        /**
+         * 规则无法判定
+         */
+        UNDETERMINED
+    }
+
+    // ========== 关键词类别（位标记，同一关键词可属于多个类别） ==========
+
+    private static final int EN_VERB = 1;
+    private static final int EN_NOUN = 1 << 1;
+    private static final int CN_VERB = 1 << 2;
+    private static final int CN_NOUN = 1 << 3;
+    private static final int SHORT_VERB = 1 << 4;
+    private static final int SHORT_NOUN = 1 << 5;
+    private static final int GREETING_WORD = 1 << 6;
+    private static final int GREETING_CJK = 1 << 7;
+
+    /**
+     * 需要单词边界校验的类别
+     */
+    private static final int WORD_BOUNDED = EN_VERB | EN_NOUN | GREETING_WORD;
+
+    // ========== 关键词表 ==========
+
+    private static final String[] EN_VERBS = {
+            "create", "write", "delete", "remove", "move", "rename", "copy",
+            "open", "edit", "save", "upload", "download", "compress", "extract"
+    };
+
+    private static final String[] EN_NOUNS = {
+            "file", "folder", "directory", "document", "txt", "pdf", "doc", "xls", "ppt", "zip"
+    };
+
+    private static final String[] CN_VERBS = {
+            "创建", "写入", "删除", "移除", "移动", "重命名", "复制", "打开",
+            "编辑", "保存", "上传", "下载", "压缩", "解压", "新建", "修改"
+    };
+
+    private static final String[] CN_NOUNS = {
+            "文件", "文件夹", "目录", "文档", "文本", "图片", "照片", "视频", "音乐", "压缩包"
+    };
+
+    private static final String[] SHORT_VERBS = {
+            "删", "新建", "创建", "复制", "粘贴", "移动", "重命名"
+    };
+
+    private static final String[] SHORT_NOUNS = {
+            "文件", "文件夹", "目录"
+    };
+
+    private static final String[] GREETING_WORDS = {
+            "hello", "hi", "hey", "good morning", "good afternoon", "good evening"
+    };
+
+    private static final String[] GREETING_CJKS = {
+            "你好", "您好", "在吗", "在不在", "嗨"
+    };
+
+    private static final int ASCII_SIZE = 128;
+
+    private static final TaskRuleMatcher INSTANCE = build();
+
+    // ========== 自动机（构建后只读） ==========
+
+    /**
+     * 状态 → 有序的转移字符
+     */
+    private final char[][] keys;
+
+    /**
+     * 状态 → 与 {@link #keys} 对应的目标状态
+     */
+    private final int[][] targets;
+
+    /**
+     * 状态 → 失败指针
+     */
+    private final int[] fail;
+
+    /**
+     * ASCII 字符的完整转移表（已展开失败指针），输入中常见的 ASCII 字符可 O(1) 转移
+     */
+    private final int[][] asciiNext;
+
+    /**
+     * 状态 → 在该状态结束的全部模式编号（含失败链上的模式）
+     */
+    private final int[][] outputs;
+
+    /**
+     * 模式编号 → 模式长度
+     */
+    private final int[] patternLength;
+
+    /**
+     * 模式编号 → 类别位标记
+     */
+    private final int[] patternFlags;
+
+    private TaskRuleMatcher(char[][] keys, int[][] targets, int[] fail, int[][] asciiNext, int[][] outputs,
+                            int[] patternLength, int[] patternFlags) {
+        this.keys = keys;
+        this.targets = targets;
+        this.fail = fail;
+        this.asciiNext = asciiNext;
+        this.outputs = outputs;
+        this.patternLength = patternLength;
+        this.patternFlags = patternFlags;
+    }
+
+    /**
+     * 对输入执行规则匹配。
+     *
+     * @param input 用户输入
+     * @return 匹配结果
+     */
+    static Verdict match(CharSequence input) {
+        return INSTANCE.scan(input);
+    }
+
+    /**
+     * 单次线性扫描输入，过程中仅使用局部基本类型变量，不分配内存。
+     */
+    private Verdict scan(CharSequence input) {
+        final int length = input.length();
+        int state = 0;
+        // 第一个英文/中文动词的结束位置（不含），名词起始位置不小于该值即满足“动词在前”
+        int enVerbEnd = Integer.MAX_VALUE;
+        int cnVerbEnd = Integer.MAX_VALUE;
+        // 简洁指令动词的结束位置位图：第 k 位表示 k 个字符之前有动词结束
+        long shortVerbEnds = 0;
+        boolean positive = false;
+
+        for (int i = 0; i < length; i++) {
+            state = step(state, foldCase(input.charAt(i)));
+            shortVerbEnds <<= 1;
+
+            for (int pattern : outputs[state]) {
+                int flags = patternFlags[pattern];
+                int len = patternLength[pattern];
+                int start = i - len + 1;
+
+                if ((flags & WORD_BOUNDED) != 0 && !isWordBounded(input, start, i + 1)) {
+                    flags &= ~WORD_BOUNDED;
+                }
+                if ((flags & (GREETING_WORD | GREETING_CJK)) != 0) {
+                    return Verdict.GREETING;
+                }
+                if (positive) {
+                    // 已判定为任务，仅需继续检查问候语
+                    continue;
+                }
+                if ((flags & EN_VERB) != 0 && enVerbEnd == Integer.MAX_VALUE) {
+                    enVerbEnd = i + 1;
+                }
+                if ((flags & CN_VERB) != 0 && cnVerbEnd == Integer.MAX_VALUE) {
+                    cnVerbEnd = i + 1;
+                }
+                if ((flags & EN_NOUN) != 0 && start >= enVerbEnd) {
+                    positive = true;
+                }
+                if ((flags & CN_NOUN) != 0 && start >= cnVerbEnd) {
+                    positive = true;
+                }
+                if ((flags & SHORT_NOUN) != 0 && len < Long.SIZE && (shortVerbEnds & (1L << len)) != 0) {
+                    positive = true;
+                }
+                if ((flags & SHORT_VERB) != 0) {
+                    shortVerbEnds |= 1L;
+                }
+            }
+        }
+        return positive ? Verdict.POSITIVE : Verdict.UNDETERMINED;
+    }
+
+    /**
+     * 自动机状态转移：沿失败指针回退直到存在转移或回到根节点。
+     */
+    private int step(int state, char c) {
+        if (c < ASCII_SIZE) {
+            return asciiNext[state][c];
+        }
+        while (true) {
+            int index = Arrays.binarySearch(keys[state], c);
+            if (index >= 0) {
+                return targets[state][index];
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * 检查 [start, end) 区间两侧是否为单词边界（与正则 {@code \b} 一致）。
+     */
+    private static boolean isWordBounded(CharSequence input, int start, int end) {
+        return (start == 0 || !isWordChar(input.charAt(start - 1)))
+                && (end == input.length() || !isWordChar(input.charAt(end)));
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * 仅折叠 ASCII 大小写，与正则 {@code (?i)} 的默认行为一致。
+     */
+    private static char foldCase(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    // ========== 构建 ==========
+
+    /**
+     * 构建自动机：合并关键词类别 → 构建字典树 → 广度优先计算失败指针 → 展开 ASCII 转移表 → 冻结为数组。
+     */
+    private static TaskRuleMatcher build() {
+        Map<String, Integer> keywords = new LinkedHashMap<>();
+        register(keywords, EN_VERBS, EN_VERB);
+        register(keywords, EN_NOUNS, EN_NOUN);
+        register(keywords, CN_VERBS, CN_VERB);
+        register(keywords, CN_NOUNS, CN_NOUN);
+        register(keywords, SHORT_VERBS, SHORT_VERB);
+        register(keywords, SHORT_NOUNS, SHORT_NOUN);
+        register(keywords, GREETING_WORDS, GREETING_WORD);
+        register(keywords, GREETING_CJKS, GREETING_CJK);
+
+        // 1. 字典树
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(new ArrayList<>());
+
+        int[] patternLength = new int[keywords.size()];
+        int[] patternFlags = new int[keywords.size()];
+        int patternId = 0;
+        for (Map.Entry<String, Integer> entry : keywords.entrySet()) {
+            int state = 0;
+            for (char c : entry.getKey().toCharArray()) {
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(c, next);
+                    trie.add(new TreeMap<>());
+                    ends.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            ends.get(state).add(patternId);
+            patternLength[patternId] = entry.getKey().length();
+            patternFlags[patternId] = entry.getValue();
+            patternId++;
+        }
+
+        // 2. 失败指针与输出合并（广度优先，保证父节点先于子节点处理）
+        int stateCount = trie.size();
+        int[] fail = new int[stateCount];
+        List<Integer> bfsOrder = new ArrayList<>();
+        Deque<Integer> queue = new ArrayDeque<>(trie.getFirst().values());
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            bfsOrder.add(state);
+            for (Map.Entry<Character, Integer> edge : trie.get(state).entrySet()) {
+                char c = edge.getKey();
+                int child = edge.getValue();
+                int f = fail[state];
+                while (f != 0 && !trie.get(f).containsKey(c)) {
+                    f = fail[f];
+                }
+                Integer target = trie.get(f).get(c);
+                fail[child] = (target != null && target != child) ? target : 0;
+                ends.get(child).addAll(ends.get(fail[child]));
+                queue.add(child);
+            }
+        }
+
+        // 3. 展开 ASCII 转移表：无直接转移时沿用失败状态的转移（失败状态更浅，已先行计算）
+        int[][] asciiNext = new int[stateCount][ASCII_SIZE];
+        for (char c = 0; c < ASCII_SIZE; c++) {
+            Integer child = trie.getFirst().get(c);
+            asciiNext[0][c] = child == null ? 0 : child;
+        }
+        for (int state : bfsOrder) {
+            for (char c = 0; c < ASCII_SIZE; c++) {
+                Integer child = trie.get(state).get(c);
+                asciiNext[state][c] = child != null ? child : asciiNext[fail[state]][c];
+            }
+        }
+
+        // 4. 冻结为数组
+        char[][] keys = new char[stateCount][];
+        int[][] targets = new int[stateCount][];
+        int[][] outputs = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            TreeMap<Character, Integer> edges = trie.get(state);
+            keys[state] = new char[edges.size()];
+            targets[state] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                keys[state][i] = edge.getKey();
+                targets[state][i] = edge.getValue();
+                i++;
+            }
+            outputs[state] = ends.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        return new TaskRuleMatcher(keys, targets, fail, asciiNext, outputs, patternLength, patternFlags);
+    }
+
+    private static void register(Map<String, Integer> keywords, String[] words, int flag) {
+        for (String word : words) {
+            keywords.merge(word, flag, (a, b) -> a | b);
+        }
+    }
+}
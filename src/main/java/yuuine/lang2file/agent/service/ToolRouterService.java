@@ -9,6 +9,7 @@ import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.stereotype.Service;
 import yuuine.lang2file.agent.dto.ToolRegistry;
+import yuuine.lang2file.config.RouterProperties;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,12 +25,39 @@ public class ToolRouterService {
 
     private final ChatClientFactory chatClientFactory;
     private final ToolRegistry toolRegistry;
+    private final LocalToolRanker localToolRanker;
+    private final RouterProperties routerProperties;
+    private final LlmRequestCoalescer coalescer;
 
+    /**
+     * 根据用户输入选择相关工具。
+     * <p>
+     * 优先使用本地 BM25 索引选择，置信度不足时回退到 LLM 选择。
+     *
+     * @param userInput 用户输入
+     * @return 选中的工具名称列表
+     */
     public List<String> selectTools(String userInput) {
+        RouterProperties.Local local = routerProperties.getLocal();
+        if (local.isEnabled()) {
+            LocalToolRanker.Ranking ranking = localToolRanker.rank(userInput);
+            if (!ranking.toolNames().isEmpty() && ranking.confidence() >= local.getMinConfidence()) {
+                log.debug("本地索引选择工具: {}", ranking.toolNames());
+                return ranking.toolNames();
+            }
+            log.debug("本地索引置信度不足({} < {})，回退LLM选择",
+                    String.format("%.3f", ranking.confidence()), local.getMinConfidence());
+        }
+        return coalescer.execute(LlmRequestCoalescer.Stage.SELECT, userInput,
+                () -> List.copyOf(selectToolsByLlm(userInput)));
+    }
+
+    /**
+     * 调用 LLM 从工具列表中选择相关工具。
+     */
+    private List<String> selectToolsByLlm(String userInput) {
 
-        String toolDesc = toolRegistry.getAll().stream()
-                .map(t -> t.getName() + " : " + t.getDescription())
-                .collect(Collectors.joining("\n"));
+        String toolDesc = toolRegistry.describeTools();
 
         log.debug("工具列表: {}", toolDesc);
 
@@ -52,7 +80,7 @@ public class ToolRouterService {
                 {"tools":["工具名称1","工具名称2"]}
                 """.formatted(toolDesc, userInput);
 
-        ChatClient chatClient = chatClientFactory.createClientWithoutMemoryAndTools();
+        ChatClient chatClient = chatClientFactory.statelessClient();
 
         ChatResponse chatResponse = chatClient.prompt()
                 .user(prompt)
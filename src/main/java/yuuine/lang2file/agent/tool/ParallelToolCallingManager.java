@@ -0,0 +1,240 @@
+package yuuine.lang2file.agent.tool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.lang.NonNull;
+import yuuine.lang2file.agent.dto.ToolMeta;
+import yuuine.lang2file.agent.dto.ToolRegistry;
+import yuuine.lang2file.config.ToolExecutionProperties;
+import yuuine.lang2file.tool.ToolAccess;
+import yuuine.lang2file.util.GlobUtil;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并行执行同一轮工具调用的 {@link ToolCallingManager}。
+ * <p>
+ * 模型在一条助手消息中返回多个工具调用时，默认实现按顺序逐个执行。本实现按 {@link ToolAccess} 声明分析调用之间的冲突，
+ * 互不冲突的调用在有界的虚拟线程池中并行执行：
+ * <ul>
+ *   <li>只读调用之间不冲突；</li>
+ *   <li>修改型调用与访问相同路径（或其上下级路径）的调用冲突，按模型给出的顺序依次执行；</li>
+ *   <li>未声明访问方式或路径参数无法解析的修改型调用与所有调用冲突。</li>
+ * </ul>
+ * 单个调用的执行（工具解析、观测、异常处理）委托给默认实现，执行结果按原顺序合并为一条工具响应消息，
+ * 与顺序执行的结果完全一致。
+ * </p>
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Slf4j
+public class ParallelToolCallingManager implements ToolCallingManager, AutoCloseable {
+
+    private final ToolCallingManager delegate;
+    private final ObjectProvider<ToolRegistry> registry;
+    private final boolean parallel;
+    private final ExecutorService executor;
+
+    /**
+     * @param delegate   执行单个工具调用的默认实现
+     * @param registry   工具注册中心；工具注册时会扫描全部 Bean，因此延迟获取
+     * @param properties 工具调用执行配置
+     */
+    public ParallelToolCallingManager(ToolCallingManager delegate, ObjectProvider<ToolRegistry> registry,
+                                      ToolExecutionProperties properties) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.parallel = properties.isParallel();
+        int concurrency = Math.max(properties.getMaxConcurrency(), 1);
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), Thread.ofVirtual().name("tool-call-", 0).factory());
+    }
+
+    @Override
+    public @NonNull List<ToolDefinition> resolveToolDefinitions(@NonNull ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public @NonNull ToolExecutionResult executeToolCalls(@NonNull Prompt prompt, @NonNull ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No tool call requested by the chat model"));
+
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        if (!parallel || toolCalls.size() < 2) {
+            return delegate.executeToolCalls(prompt, chatResponse);
+        }
+
+        // 1. 按声明的访问方式与路径建立依赖：每个调用等待与其冲突的所有前序调用
+        List<CallAccess> accesses = toolCalls.stream().map(this::resolveAccess).toList();
+        List<CompletableFuture<ToolExecutionResult>> futures = new ArrayList<>(toolCalls.size());
+        int concurrent = 0;
+        for (int i = 0; i < toolCalls.size(); i++) {
+            List<CompletableFuture<?>> dependencies = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                if (accesses.get(i).conflictsWith(accesses.get(j))) {
+                    dependencies.add(futures.get(j));
+                }
+            }
+            if (dependencies.isEmpty()) {
+                concurrent++;
+            }
+            AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+            // 前序调用失败时仍按顺序执行，失败在全部完成后统一抛出
+            futures.add(CompletableFuture.allOf(dependencies.toArray(CompletableFuture[]::new))
+                    .handle((ignored, error) -> null)
+                    .thenApplyAsync(ignored -> executeSingle(prompt, assistantMessage, toolCall), executor));
+        }
+        log.debug("并行执行工具调用 {} 个，其中可立即执行 {} 个", toolCalls.size(), concurrent);
+
+        // 2. 按原顺序合并结果
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(toolCalls.size());
+        boolean returnDirect = true;
+        for (CompletableFuture<ToolExecutionResult> future : futures) {
+            ToolExecutionResult result = join(future);
+            List<Message> history = result.conversationHistory();
+            ToolResponseMessage response = (ToolResponseMessage) history.getLast();
+            responses.addAll(response.getResponses());
+            returnDirect &= result.returnDirect();
+        }
+
+        List<Message> conversationHistory = new ArrayList<>(prompt.getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(ToolResponseMessage.builder().responses(responses).build());
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    /**
+     * 以只包含单个工具调用的助手消息委托默认实现执行。
+     */
+    private ToolExecutionResult executeSingle(Prompt prompt, AssistantMessage assistantMessage,
+                                              AssistantMessage.ToolCall toolCall) {
+        AssistantMessage single = AssistantMessage.builder()
+                .content(assistantMessage.getText())
+                .properties(assistantMessage.getMetadata())
+                .toolCalls(List.of(toolCall))
+                .build();
+        return delegate.executeToolCalls(prompt, new ChatResponse(List.of(new Generation(single))));
+    }
+
+    private static ToolExecutionResult join(CompletableFuture<ToolExecutionResult> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 解析工具调用的访问方式与访问路径。
+     */
+    private CallAccess resolveAccess(AssistantMessage.ToolCall toolCall) {
+        List<ToolMeta> metas = registry.getObject().getByNames(List.of(toolCall.name()));
+        if (metas.isEmpty()) {
+            return CallAccess.UNKNOWN;
+        }
+        ToolMeta meta = metas.getFirst();
+        if (meta.getPathParams().isEmpty()) {
+            return meta.isReadOnly() ? CallAccess.NO_PATH_READ : CallAccess.UNKNOWN;
+        }
+
+        Map<String, Object> arguments;
+        try {
+            arguments = ModelOptionsUtils.jsonToMap(toolCall.arguments());
+        } catch (RuntimeException e) {
+            return meta.isReadOnly() ? CallAccess.NO_PATH_READ : CallAccess.UNKNOWN;
+        }
+        List<Path> paths = new ArrayList<>(meta.getPathParams().size());
+        for (String param : meta.getPathParams()) {
+            Object value = arguments.get(param);
+            // 路径列表参数逐个展开
+            Collection<?> values = value instanceof Collection<?> collection ? collection : Collections.singletonList(value);
+            for (Object item : values) {
+                if (item == null || item.toString().isBlank()) {
+                    continue;
+                }
+                // 通配路径按其基准目录计算访问范围
+                String pathStr = GlobUtil.baseDirectory(item.toString().trim());
+                try {
+                    paths.add(Paths.get(pathStr).toAbsolutePath().normalize());
+                } catch (InvalidPathException e) {
+                    // 路径非法时工具自身会返回错误，按路径未知处理
+                    return meta.isReadOnly() ? CallAccess.NO_PATH_READ : CallAccess.UNKNOWN;
+                }
+            }
+        }
+        if (paths.isEmpty() && !meta.isReadOnly()) {
+            return CallAccess.UNKNOWN;
+        }
+        return new CallAccess(meta.isReadOnly(), paths, false);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 单个工具调用的访问声明。
+     *
+     * @param readOnly 是否只读
+     * @param paths    访问的路径（已规范化）
+     * @param global   是否与所有调用冲突
+     */
+    private record CallAccess(boolean readOnly, List<Path> paths, boolean global) {
+
+        static final CallAccess UNKNOWN = new CallAccess(false, List.of(), true);
+        static final CallAccess NO_PATH_READ = new CallAccess(true, List.of(), false);
+
+        boolean conflictsWith(CallAccess other) {
+            if (global || other.global) {
+                return true;
+            }
+            if (readOnly && other.readOnly) {
+                return false;
+            }
+            for (Path path : paths) {
+                for (Path otherPath : other.paths) {
+                    if (path.startsWith(otherPath) || otherPath.startsWith(path)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
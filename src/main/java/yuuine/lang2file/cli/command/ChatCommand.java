@@ -8,6 +8,8 @@ import org.springframework.shell.standard.ShellMethod;
 import org.springframework.shell.standard.ShellOption;
 import reactor.core.scheduler.Schedulers;
 import yuuine.lang2file.agent.AgentService;
+import yuuine.lang2file.agent.limiter.ModelBusyException;
+import yuuine.lang2file.util.IdUtil;
 
 import java.util.concurrent.CountDownLatch;
 
@@ -18,6 +20,11 @@ public class ChatCommand {
 
     private final AgentService agentService;
 
+    /**
+     * 当前会话ID，进程内所有对话共享，执行 new 命令后切换到新会话
+     */
+    private volatile String sessionId = IdUtil.generateSessionId();
+
     @ShellMethod(key = {"chat", ":", "：", "`", "c"},
             value = "与AI助手对话",
             group = "system command")
@@ -29,6 +36,15 @@ public class ChatCommand {
 
     }
 
+    @ShellMethod(key = {"new", "reset"},
+            value = "开始新的会话（清空对话上下文）",
+            group = "system command")
+    public String newSession() {
+        sessionId = IdUtil.generateSessionId();
+        log.debug("切换到新会话: {}", sessionId);
+        return "已开始新的会话";
+    }
+
     /**
      * 处理用户与AI助手的对话交互
      * 
@@ -51,9 +67,9 @@ public class ChatCommand {
         StringBuilder fullResponse = new StringBuilder();
 
         try {
-            log.debug("用户输入: {}", message);
+            log.debug("用户输入 [{}]: {}", sessionId, message);
 
-            agentService.chatStream(message)
+            agentService.chatStream(sessionId, message)
                     .subscribeOn(Schedulers.boundedElastic())
                     .doOnNext(chunk -> {
                         System.out.print(chunk);
@@ -66,8 +82,13 @@ public class ChatCommand {
                         latch.countDown();
                     })
                     .doOnError(error -> {
-                        System.err.println("\n处理失败: " + error.getMessage());
-                        log.error("处理输入失败", error);
+                        if (error instanceof ModelBusyException) {
+                            System.err.println("\n模型繁忙，请稍后重试");
+                            log.warn("模型调用繁忙: {}", error.getMessage());
+                        } else {
+                            System.err.println("\n处理失败: " + error.getMessage());
+                            log.error("处理输入失败", error);
+                        }
                         latch.countDown();
                     })
                     .subscribe();
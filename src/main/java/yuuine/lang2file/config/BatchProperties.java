@@ -0,0 +1,25 @@
+package yuuine.lang2file.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 批量对话配置，对应配置前缀 {@code lang2file.batch}。
+ * <p>
+ * 控制单个批量请求中同时执行的条目数量与条目总数上限。
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "lang2file.batch")
+public class BatchProperties {
+
+    /**
+     * 单个批量请求中同时执行的条目数量（同一会话的条目始终按顺序执行）
+     */
+    private int parallelism = 8;
+
+    /**
+     * 单个批量请求允许的最大条目数
+     */
+    private int maxItems = 500;
+}
@@ -1,65 +1,70 @@
 package yuuine.lang2file.config;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
-import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.lang.NonNull;
+import yuuine.lang2file.agent.memory.ConversationSummarizer;
+import yuuine.lang2file.agent.memory.MappedLogChatMemoryRepository;
+import yuuine.lang2file.agent.memory.RingBufferChatMemory;
 
 /**
- * 聊天客户端配置类，提供带有消息数量上限的 {@link ChatMemory} Bean。
+ * 聊天客户端配置类，提供按 token 预算限制窗口的 {@link ChatMemory} Bean。
  * <p>
- * 该内存实现基于 {@link InMemoryChatMemoryRepository}，并限制每个会话最多保留 20 条消息，
- * 自动移除最旧的消息以保持上限。
+ * 该内存实现为 {@link RingBufferChatMemory}：每个会话按 {@code lang2file.memory.max-tokens}
+ * 保留最近若干轮消息（{@code max-messages} 为硬上限），并按空闲时间与会话总数上限淘汰会话，避免会话无限增长。
+ * 配置 {@code lang2file.memory.store=mapped-log} 时，消息同时写入 {@link MappedLogChatMemoryRepository}，重启后可恢复。
+ * 显式启用 {@code lang2file.memory.summary} 时，移出窗口的消息由 {@link ConversationSummarizer} 在后台合并为滚动摘要。
  * </p>
  */
 @Configuration
 public class ChatClientConfig {
 
     /**
-     * 每个会话允许保留的最大消息数量。
-     * 设置为 20 条，对应大约 10 轮对话（每轮包含用户和助手各一条消息）。
+     * 创建并配置一个带有消息数量限制的 {@link ChatMemory} Bean。
+     *
+     * @param properties    会话记忆配置
+     * @param meterRegistry 监控指标注册表
+     * @return 基于环形缓冲区的聊天内存实现
      */
-    private static final int MAX_MESSAGES = 20;
+    @Bean(destroyMethod = "close")
+    public ChatMemory chatMemory(MemoryProperties properties, MeterRegistry meterRegistry,
+                                 ObjectProvider<MappedLogChatMemoryRepository> repository,
+                                 ObjectProvider<ConversationSummarizer> summarizer) {
+        return new RingBufferChatMemory(properties, meterRegistry, repository.getIfAvailable(),
+                summarizer.getIfAvailable());
+    }
 
     /**
-     * 创建并配置一个带有消息数量限制的 {@link ChatMemory} Bean。
+     * 旧消息摘要器，仅在 {@code lang2file.memory.summary.enabled=true} 时创建。
+     * 直接使用 {@link ChatModel}，不依赖会话记忆，避免循环依赖；摘要调用与主对话共用并发限流。
      *
-     * @return 受限于 {@link #MAX_MESSAGES} 的聊天内存实现
+     * @param chatModel     对话模型
+     * @param properties    会话记忆配置
+     * @param meterRegistry 监控指标注册表
+     * @return 会话摘要器
      */
-    @Bean
-    public ChatMemory chatMemory() {
-        InMemoryChatMemoryRepository repository = new InMemoryChatMemoryRepository();
-
-        return new ChatMemory() {
-            @Override
-            public void add(@NonNull String conversationId, @NonNull List<Message> messages) {
-                // 获取当前会话的现有消息，并合并新消息
-                List<Message> existingMessages = new ArrayList<>(get(conversationId));
-                existingMessages.addAll(messages);
-
-                // 如果超出最大限制，则从头部移除最旧的消息，直到满足数量上限
-                while (existingMessages.size() > MAX_MESSAGES) {
-                    existingMessages.removeFirst();
-                }
-
-                // 将裁剪后的消息列表保存回存储库
-                repository.saveAll(conversationId, existingMessages);
-            }
-
-            @Override
-            public @NonNull List<Message> get(@NonNull String conversationId) {
-                return repository.findByConversationId(conversationId);
-            }
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "lang2file.memory.summary", name = "enabled", havingValue = "true")
+    public ConversationSummarizer conversationSummarizer(ChatModel chatModel, MemoryProperties properties,
+                                                         MeterRegistry meterRegistry) {
+        return new ConversationSummarizer(chatModel, properties, meterRegistry);
+    }
 
-            @Override
-            public void clear(@NonNull String conversationId) {
-                repository.deleteByConversationId(conversationId);
-            }
-        };
+    /**
+     * 基于内存映射追加日志的持久化存储，仅在 {@code lang2file.memory.store=mapped-log} 时创建。
+     *
+     * @param properties    会话记忆配置
+     * @param meterRegistry 监控指标注册表
+     * @return 持久化会话记忆存储
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "lang2file.memory", name = "store", havingValue = "mapped-log")
+    public MappedLogChatMemoryRepository mappedLogChatMemoryRepository(MemoryProperties properties,
+                                                                       MeterRegistry meterRegistry) {
+        return new MappedLogChatMemoryRepository(properties, meterRegistry);
     }
-}
\ No newline at end of file
+}
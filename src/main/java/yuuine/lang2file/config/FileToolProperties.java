@@ -0,0 +1,194 @@
+package yuuine.lang2file.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 文件工具配置，对应配置前缀 {@code lang2file.file-tool}。
+ * <p>
+ * 控制文件工具单次调用的输出预算，避免一次工具调用把大量内容塞进模型上下文。
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "lang2file.file-tool")
+public class FileToolProperties {
+
+    /**
+     * 分页读取（{@code read_file}）配置
+     */
+    private final Read read = new Read();
+
+    /**
+     * 目录列表（{@code list_directory}）配置
+     */
+    private final Listing listing = new Listing();
+
+    /**
+     * 写入（{@code write_file}）配置
+     */
+    private final Write write = new Write();
+
+    /**
+     * 行偏移索引（{@code read_lines}、{@code tail_file}）配置
+     */
+    private final LineIndex lineIndex = new LineIndex();
+
+    /**
+     * 批量读取（{@code read_files}）配置
+     */
+    private final BatchRead batchRead = new BatchRead();
+
+    /**
+     * 分页读取配置。
+     */
+    @Data
+    public static class Read {
+
+        /**
+         * 单次调用最多输出的字符数，超出部分通过游标继续读取
+         */
+        private int maxChars = 16_000;
+
+        /**
+         * 单次内存映射的窗口大小，决定按行定位和解码时每次映射的字节数
+         */
+        private DataSize mapWindow = DataSize.ofMegabytes(4);
+    }
+
+    /**
+     * 目录列表配置。
+     */
+    @Data
+    public static class Listing {
+
+        /**
+         * 未指定时单页返回的条目数
+         */
+        private int defaultMaxEntries = 200;
+
+        /**
+         * 单页返回条目数的上限
+         */
+        private int maxEntriesLimit = 2_000;
+
+        /**
+         * 递归列出且未指定深度时的最大深度
+         */
+        private int defaultMaxDepth = 10;
+    }
+
+    /**
+     * 写入刷盘方式。
+     */
+    public enum Durability {
+
+        /**
+         * 不刷盘：临时文件写完直接重命名，进程崩溃不会留下半个文件，操作系统崩溃可能丢失最近的写入
+         */
+        NONE,
+
+        /**
+         * 每次写入在重命名前刷新文件数据，重命名后刷新所在目录，返回时写入已落盘
+         */
+        FDATASYNC,
+
+        /**
+         * 组提交：写完临时文件后等待下一次后台刷盘，同一周期内的写入一起刷盘、重命名，共享目录刷盘
+         */
+        GROUP
+    }
+
+    /**
+     * 写入配置。
+     */
+    @Data
+    public static class Write {
+
+        /**
+         * 刷盘方式
+         */
+        private Durability durability = Durability.GROUP;
+
+        /**
+         * {@code GROUP} 模式下的后台刷盘间隔
+         */
+        private Duration groupInterval = Duration.ofMillis(20);
+
+        /**
+         * 覆盖写入的内容与文件现有内容相同时跳过写入
+         */
+        private boolean skipUnchanged = true;
+
+        /**
+         * 内存中缓存的文件内容摘要数量，命中时判断内容是否变化无需重新读取文件
+         */
+        private int fingerprintCacheSize = 1024;
+    }
+
+    /**
+     * 行偏移索引配置。
+     */
+    @Data
+    public static class LineIndex {
+
+        /**
+         * 相邻检查点之间的最大行数，定位任意行时最多从检查点向后扫描这么多行
+         */
+        private int stride = 512;
+
+        /**
+         * 构建索引时每个并行扫描块的大小
+         */
+        private DataSize scanChunk = DataSize.ofMegabytes(64);
+
+        /**
+         * 并行扫描的线程数；扫描受磁盘吞吐限制，线程过多无益
+         */
+        private int scanThreads = 4;
+
+        /**
+         * 索引文件的缓存目录，为空时只使用旁路索引文件
+         */
+        private String cacheDirectory = "./data/line-index";
+
+        /**
+         * 是否优先把索引文件写在源文件旁边（{@code <文件名>.lidx}）
+         */
+        private boolean sidecar = false;
+
+        /**
+         * 达到该大小的文件才持久化索引，较小的文件只在内存中缓存
+         */
+        private DataSize minFileSize = DataSize.ofMegabytes(8);
+
+        /**
+         * 内存中缓存的索引数量
+         */
+        private int cacheSize = 32;
+    }
+
+    /**
+     * 批量读取配置。
+     */
+    @Data
+    public static class BatchRead {
+
+        /**
+         * 单次调用最多读取的文件数（含通配匹配到的文件）
+         */
+        private int maxFiles = 50;
+
+        /**
+         * 单个文件最多输出的字符数
+         */
+        private int maxCharsPerFile = 8_000;
+
+        /**
+         * 单次调用所有文件合计最多输出的字符数，按文件实际长度公平分配
+         */
+        private int maxTotalChars = 32_000;
+    }
+}
@@ -0,0 +1,29 @@
+package yuuine.lang2file.config;
+
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import yuuine.lang2file.agent.limiter.ConcurrencyLimitInterceptor;
+
+/**
+ * 模型调用限流配置类，将 {@link ConcurrencyLimitInterceptor} 挂载到 HTTP 客户端构建器上。
+ * <p>
+ * Spring AI 的模型客户端通过 Spring Boot 提供的 {@code RestClient.Builder} 与 {@code WebClient.Builder} 发起请求，
+ * 因此对话、路由与摘要等所有模型调用的每一次 HTTP 往返都经过同一个限流器。
+ * 应用中其他外部请求（如天气、IP 查询工具）使用独立的 JDK HttpClient，不受影响。
+ * </p>
+ */
+@Configuration
+public class LimiterConfig {
+
+    @Bean
+    public RestClientCustomizer concurrencyLimitRestClientCustomizer(ConcurrencyLimitInterceptor interceptor) {
+        return builder -> builder.requestInterceptor(interceptor);
+    }
+
+    @Bean
+    public WebClientCustomizer concurrencyLimitWebClientCustomizer(ConcurrencyLimitInterceptor interceptor) {
+        return builder -> builder.filter(interceptor);
+    }
+}
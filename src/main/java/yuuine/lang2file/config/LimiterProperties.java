@@ -0,0 +1,68 @@
+package yuuine.lang2file.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 模型调用并发限流配置，对应配置前缀 {@code lang2file.limiter}。
+ * <p>
+ * 并发上限根据观测到的调用延迟在 [{@link #minLimit}, {@link #maxLimit}] 区间内自适应调整，
+ * 超出上限的请求进入有界等待队列，队列已满或等待超时则快速失败。
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "lang2file.limiter")
+public class LimiterProperties {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 并发上限的最小值
+     */
+    private int minLimit = 2;
+
+    /**
+     * 并发上限的最大值
+     */
+    private int maxLimit = 200;
+
+    /**
+     * 等待队列长度，超出后直接拒绝
+     */
+    private int queueSize = 50;
+
+    /**
+     * 排队等待的最长时间，超时后拒绝
+     */
+    private Duration maxWait = Duration.ofSeconds(5);
+
+    /**
+     * 延迟容忍系数：短期延迟不超过长期基线的该倍数时不收缩上限
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * 上限调整的平滑系数（0~1），越大调整越激进
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 长期延迟基线的样本窗口大小（指数移动平均）
+     */
+    private int longWindow = 100;
+
+    /**
+     * 调用被上游拒绝（429）或超时时，上限的收缩比例
+     */
+    private double backoffRatio = 0.9;
+}
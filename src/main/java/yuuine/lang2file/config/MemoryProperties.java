@@ -0,0 +1,170 @@
+package yuuine.lang2file.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 会话记忆配置，对应配置前缀 {@code lang2file.memory}。
+ * <p>
+ * 控制每个会话记忆窗口的 token 预算与消息数量上限、会话总数上限、空闲会话的淘汰策略、旧消息摘要以及持久化方式。
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "lang2file.memory")
+public class MemoryProperties {
+
+    /**
+     * 每个会话允许保留的最大消息数量（硬上限），实际窗口通常由 {@link #maxTokens} 决定
+     */
+    private int maxMessages = 100;
+
+    /**
+     * 每个会话记忆窗口的 token 预算，超出后从最旧的一轮开始移出；小于等于 0 表示不限制
+     */
+    private int maxTokens = 4000;
+
+    /**
+     * 同时保留的会话数量上限，超出后淘汰最久未访问的会话
+     */
+    private int maxConversations = 10_000;
+
+    /**
+     * 会话空闲超过该时间后被淘汰
+     */
+    private Duration idleTtl = Duration.ofMinutes(30);
+
+    /**
+     * 空闲会话的清理间隔
+     */
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    /**
+     * 持久化方式，默认仅保存在内存中
+     */
+    private Store store = Store.MEMORY;
+
+    /**
+     * 内存映射日志存储配置，仅在 {@code store=mapped-log} 时生效
+     */
+    private final MappedLog mappedLog = new MappedLog();
+
+    /**
+     * 移出窗口的旧消息的摘要配置
+     */
+    private final Summary summary = new Summary();
+
+    /**
+     * 会话记忆持久化方式。
+     */
+    public enum Store {
+
+        /**
+         * 仅保存在内存中，重启后丢失
+         */
+        MEMORY,
+
+        /**
+         * 写入内存映射的追加日志，重启后按需恢复
+         */
+        MAPPED_LOG
+    }
+
+    /**
+     * 日志刷盘方式。
+     */
+    public enum Durability {
+
+        /**
+         * 写入映射内存即返回，由后台线程定期刷盘（进程崩溃不丢数据，操作系统崩溃可能丢失最近一个刷盘周期）
+         */
+        ASYNC,
+
+        /**
+         * 组提交：写入后等待下一次刷盘完成再返回，同一周期内的写入共享一次刷盘
+         */
+        GROUP
+    }
+
+    /**
+     * 内存映射日志存储配置。
+     */
+    @Data
+    public static class MappedLog {
+
+        /**
+         * 日志目录
+         */
+        private String directory = "./data/chat-memory";
+
+        /**
+         * 单个日志段的大小
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * 刷盘方式
+         */
+        private Durability durability = Durability.ASYNC;
+
+        /**
+         * 后台刷盘间隔
+         */
+        private Duration flushInterval = Duration.ofMillis(10);
+
+        /**
+         * 后台压缩检查间隔
+         */
+        private Duration compactionInterval = Duration.ofMinutes(5);
+
+        /**
+         * 已封存日志段的有效记录比例低于该值时触发压缩
+         */
+        private double compactionThreshold = 0.5;
+
+        /**
+         * 会话在最后一次写入后的保留时间，超过后在压缩时删除
+         */
+        private Duration retention = Duration.ofDays(7);
+    }
+
+    /**
+     * 旧消息摘要配置。
+     */
+    @Data
+    public static class Summary {
+
+        /**
+         * 是否将移出记忆窗口的消息合并为滚动摘要，关闭时旧消息直接丢弃。
+         * 摘要会产生额外的模型调用，默认关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * 摘要使用的模型，为空时使用默认对话模型
+         */
+        private String model;
+
+        /**
+         * 摘要的最大输出 token 数
+         */
+        private int maxTokens = 512;
+
+        /**
+         * 摘要调用的采样温度
+         */
+        private double temperature = 0.3;
+
+        /**
+         * 同时进行的摘要调用数量
+         */
+        private int concurrency = 2;
+
+        /**
+         * 等待执行的摘要任务上限，超出时放弃摘要
+         */
+        private int queueSize = 100;
+    }
+}
@@ -0,0 +1,43 @@
+package yuuine.lang2file.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 非任务型对话响应缓存配置，对应配置前缀 {@code lang2file.response-cache}。
+ * <p>
+ * 默认关闭。启用后，无历史记录的会话中的闲聊输入会优先从缓存中返回回复。
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "lang2file.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * 是否启用响应缓存
+     */
+    private boolean enabled = false;
+
+    /**
+     * 最大缓存条目数，超出后按 LRU 淘汰
+     */
+    private int maxSize = 512;
+
+    /**
+     * 缓存条目存活时间
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    /**
+     * 可缓存输入的最大长度（归一化后的字符数），较长的输入通常包含具体内容，不适合复用回复
+     */
+    private int maxInputLength = 64;
+
+    /**
+     * 相似度阈值（0~1），问候语式的短输入未精确命中时，字符二元组 Jaccard 相似度不低于该值视为命中；
+     * 其他输入只能精确命中
+     */
+    private double similarityThreshold = 0.9;
+}
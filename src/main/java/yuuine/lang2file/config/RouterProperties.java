@@ -0,0 +1,113 @@
+package yuuine.lang2file.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 路由相关配置，对应配置前缀 {@code lang2file.router}。
+ * <p>
+ * 控制任务分类与工具选择阶段的行为。
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "lang2file.router")
+public class RouterProperties {
+
+    /**
+     * 路由模式，默认顺序执行
+     */
+    private Mode mode = Mode.SEQUENTIAL;
+
+    /**
+     * 本地工具检索配置
+     */
+    private final Local local = new Local();
+
+    /**
+     * 任务分类结果缓存配置
+     */
+    private final DecisionCache decisionCache = new DecisionCache();
+
+    /**
+     * 是否合并并发到达的相同输入的路由 LLM 调用（单飞）
+     */
+    private boolean singleFlight = true;
+
+    /**
+     * 路由模式。
+     */
+    public enum Mode {
+
+        /**
+         * 顺序执行：先判断是否为任务，再选择工具（最多两次 LLM 调用）
+         */
+        SEQUENTIAL,
+
+        /**
+         * 融合执行：一次 LLM 调用同时返回任务判断与工具选择
+         */
+        FUSED,
+
+        /**
+         * 推测执行：任务判断与工具选择并行执行，非任务时取消工具选择
+         */
+        SPECULATIVE
+    }
+
+    /**
+     * 本地工具检索（BM25）配置。
+     * <p>
+     * 启用后优先使用本地索引选择工具，仅当置信度低于阈值时回退到 LLM 选择。
+     * </p>
+     */
+    @Data
+    public static class Local {
+
+        /**
+         * 是否启用本地工具检索
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最低置信度（0~1），低于该值时回退到 LLM 选择
+         */
+        private double minConfidence = 0.6;
+
+        /**
+         * 相对得分阈值：得分不低于最高分该比例的工具才会被选中
+         */
+        private double relativeCutoff = 0.6;
+
+        /**
+         * 单次最多选择的工具数量
+         */
+        private int maxTools = 3;
+    }
+
+    /**
+     * 任务分类结果缓存配置。
+     * <p>
+     * 缓存 LLM 兜底分类的结果，键为归一化后的用户输入。
+     * </p>
+     */
+    @Data
+    public static class DecisionCache {
+
+        /**
+         * 是否启用分类缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最大缓存条目数，超出后按 LRU 淘汰
+         */
+        private int maxSize = 1024;
+
+        /**
+         * 缓存条目存活时间
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+}
@@ -0,0 +1,46 @@
+package yuuine.lang2file.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import yuuine.lang2file.agent.dto.ToolRegistry;
+import yuuine.lang2file.agent.tool.ParallelToolCallingManager;
+
+/**
+ * 工具调用配置类，以 {@link ParallelToolCallingManager} 替换 Spring AI 默认的 {@link ToolCallingManager}。
+ * <p>
+ * 工具解析、异常处理与观测沿用自动配置提供的组件，仅改变同一轮中多个工具调用的执行方式。
+ * </p>
+ */
+@Configuration
+public class ToolCallingConfig {
+
+    /**
+     * 创建并行执行工具调用的管理器，聊天模型的工具调用循环（同步与流式）均使用该实例。
+     *
+     * @param toolCallbackResolver            工具回调解析器
+     * @param toolExecutionExceptionProcessor 工具执行异常处理器
+     * @param observationRegistry             观测注册表
+     * @param toolRegistry                    工具注册中心（延迟获取）
+     * @param properties                      工具调用执行配置
+     * @return 工具调用管理器
+     */
+    @Bean(destroyMethod = "close")
+    public ParallelToolCallingManager toolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                                         ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+                                                         ObjectProvider<ObservationRegistry> observationRegistry,
+                                                         ObjectProvider<ToolRegistry> toolRegistry,
+                                                         ToolExecutionProperties properties) {
+        ToolCallingManager delegate = DefaultToolCallingManager.builder()
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(toolExecutionExceptionProcessor)
+                .build();
+        return new ParallelToolCallingManager(delegate, toolRegistry, properties);
+    }
+}
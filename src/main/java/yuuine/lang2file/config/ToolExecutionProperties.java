@@ -0,0 +1,25 @@
+package yuuine.lang2file.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 工具调用执行配置，对应配置前缀 {@code lang2file.tool-execution}。
+ * <p>
+ * 控制模型在同一轮中返回多个工具调用时是否并行执行，以及全局同时执行的工具调用数量上限。
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "lang2file.tool-execution")
+public class ToolExecutionProperties {
+
+    /**
+     * 是否并行执行同一轮中互不冲突的工具调用，关闭时按模型给出的顺序依次执行
+     */
+    private boolean parallel = true;
+
+    /**
+     * 全局同时执行的工具调用数量上限
+     */
+    private int maxConcurrency = 16;
+}
@@ -2,20 +2,29 @@ package yuuine.lang2file.config;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.springframework.ai.tool.method.MethodToolCallback;
+import org.springframework.ai.tool.support.ToolDefinitions;
+import org.springframework.ai.tool.support.ToolUtils;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import yuuine.lang2file.agent.dto.ToolMeta;
 import yuuine.lang2file.agent.dto.ToolRegistry;
+import yuuine.lang2file.tool.ToolAccess;
 
 import java.lang.reflect.Method;
+import java.util.List;
 
 /**
  * 工具注册自动配置类。
  * <p>
  * 扫描 Spring 容器中所有 Bean 的方法，将带有 {@link Tool} 注解的方法自动注册到 {@link ToolRegistry} 中。
+ * 注册时为每个工具预先构建 {@link ToolCallback}（反射解析与 JSON Schema 生成只执行一次），
+ * 请求阶段直接组合使用。方法上的 {@link ToolAccess} 一并记录到元信息中，供工具调用并行调度使用。
  * </p>
  */
 @Configuration
@@ -55,14 +64,35 @@ public class ToolRegistryAutoConfig {
         for (Method method : bean.getClass().getDeclaredMethods()) {
             Tool tool = method.getAnnotation(Tool.class);
             if (tool != null) {
+                ToolAccess access = method.getAnnotation(ToolAccess.class);
                 ToolMeta meta = new ToolMeta(
                         tool.name(),
                         tool.description(),
                         bean,
-                        method
+                        method,
+                        buildToolCallback(bean, method),
+                        access != null && access.value() == ToolAccess.Mode.READ_ONLY,
+                        access == null ? List.of() : List.of(access.paths())
                 );
                 registry.register(meta);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 为单个工具方法构建回调，等价于 {@code MethodToolCallbackProvider} 对单个方法的处理。
+     *
+     * @param bean   工具所在的 Bean 实例
+     * @param method 工具方法
+     * @return 工具回调
+     */
+    private ToolCallback buildToolCallback(Object bean, Method method) {
+        return MethodToolCallback.builder()
+                .toolDefinition(ToolDefinitions.from(method))
+                .toolMetadata(ToolMetadata.from(method))
+                .toolMethod(method)
+                .toolObject(bean)
+                .toolCallResultConverter(ToolUtils.getToolCallResultConverter(method))
+                .build();
+    }
+}
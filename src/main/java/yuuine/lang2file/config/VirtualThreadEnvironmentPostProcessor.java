@@ -0,0 +1,33 @@
+package yuuine.lang2file.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * 虚拟线程环境后置处理器。
+ * <p>
+ * {@code spring.threads.virtual.enabled=true} 时，Spring Boot 会让 Tomcat 请求线程、
+ * MVC 异步执行器等运行在虚拟线程上，但 Reactor 的 {@code boundedElastic} 调度器仍使用平台线程，
+ * 而流式对话中的路由阶段与工具调用恰好运行在该调度器上。
+ * 本处理器在应用上下文创建前设置 Reactor 的系统属性，使 {@code boundedElastic} 同样使用虚拟线程。
+ * </p>
+ * <p>
+ * Reactor 在 {@code Schedulers} 类初始化时读取该属性，因此必须在任何 Reactor 调度器被使用之前执行；
+ * 若已通过 JVM 参数显式设置，则以显式设置为准。
+ * </p>
+ */
+public class VirtualThreadEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String VIRTUAL_THREADS_PROPERTY = "spring.threads.virtual.enabled";
+
+    static final String REACTOR_VIRTUAL_THREADS_PROPERTY = "reactor.schedulers.defaultBoundedElasticOnVirtualThreads";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        boolean enabled = environment.getProperty(VIRTUAL_THREADS_PROPERTY, Boolean.class, false);
+        if (enabled && System.getProperty(REACTOR_VIRTUAL_THREADS_PROPERTY) == null) {
+            System.setProperty(REACTOR_VIRTUAL_THREADS_PROPERTY, "true");
+        }
+    }
+}
@@ -2,27 +2,134 @@ package yuuine.lang2file.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import yuuine.lang2file.agent.AgentService;
+import yuuine.lang2file.agent.dto.BatchChatItem;
+import yuuine.lang2file.agent.dto.BatchChatResult;
+import yuuine.lang2file.agent.limiter.ModelBusyException;
+import yuuine.lang2file.config.BatchProperties;
+import yuuine.lang2file.util.IdUtil;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * Agent 聊天接口
+ * <p>
+ * 会话通过请求头 {@value #SESSION_HEADER} 标识：客户端携带该请求头时沿用对应会话的对话记忆，
+ * 未携带时创建新会话；响应头中始终返回本次使用的会话ID，客户端在后续请求中带上即可继续对话。
+ * </p>
  */
 @RestController
 @RequestMapping("/api/agent")
 @RequiredArgsConstructor
 public class AgentController {
 
+    /**
+     * 会话ID请求头/响应头
+     */
+    public static final String SESSION_HEADER = "X-Session-Id";
+
     private final AgentService agentService;
+    private final BatchProperties batchProperties;
 
     @PostMapping("/chat")
-    public ChatResponse chat(@RequestBody String userInput) {
-        return agentService.chat(userInput);
+    public ResponseEntity<ChatResponse> chat(@RequestHeader(value = SESSION_HEADER, required = false) String sessionId,
+                                             @RequestBody String userInput) {
+        String session = resolveSession(sessionId);
+        return ResponseEntity.ok()
+                .header(SESSION_HEADER, session)
+                .body(agentService.chat(session, userInput));
     }
 
     @PostMapping("/chatText")
-    public String chatText(@RequestBody String userInput) {
-        return agentService.chat(userInput).getResult().getOutput().getText();
+    public ResponseEntity<String> chatText(@RequestHeader(value = SESSION_HEADER, required = false) String sessionId,
+                                           @RequestBody String userInput) {
+        String session = resolveSession(sessionId);
+        return ResponseEntity.ok()
+                .header(SESSION_HEADER, session)
+                .body(agentService.chat(session, userInput).getResult().getOutput().getText());
+    }
+
+    /**
+     * 流式聊天接口（SSE）。
+     * <p>
+     * 每个文本片段作为一个 {@code message} 事件下发，结束时发送 {@code done} 事件，
+     * 出错时发送 {@code error} 事件并结束流，模型调用繁忙时发送 {@code busy} 事件。响应按客户端写出速度逐个请求上游片段（背压）。
+     * </p>
+     */
+    @PostMapping(value = "/chatStream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> chatStream(
+            @RequestHeader(value = SESSION_HEADER, required = false) String sessionId,
+            @RequestBody String userInput) {
+        String session = resolveSession(sessionId);
+        Flux<ServerSentEvent<String>> events = agentService.chatStream(session, userInput)
+                .map(chunk -> ServerSentEvent.builder(chunk).event("message").build())
+                .concatWith(Flux.just(ServerSentEvent.builder("[DONE]").event("done").build()))
+                .onErrorResume(e -> Flux.just(ServerSentEvent.builder(String.valueOf(e.getMessage()))
+                        .event(e instanceof ModelBusyException ? "busy" : "error").build()));
+        return ResponseEntity.ok()
+                .header(SESSION_HEADER, session)
+                .body(events);
+    }
+
+    /**
+     * 批量聊天接口（NDJSON）。
+     * <p>
+     * 请求体为条目数组，每个条目可指定会话ID；条目以有界并行度执行，每完成一个即以一行 JSON 返回其结果，
+     * 结果按完成顺序排列，通过 {@code index} 或 {@code id} 与请求条目对应。
+     * </p>
+     */
+    @PostMapping(value = "/chatBatch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchChatResult> chatBatch(@RequestBody List<BatchChatItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "批量条目不能为空");
+        }
+        if (items.size() > batchProperties.getMaxItems()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "批量条目数超过上限 " + batchProperties.getMaxItems());
+        }
+        for (BatchChatItem item : items) {
+            if (item == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "批量条目不能为 null");
+            }
+            if (StringUtils.hasText(item.sessionId())) {
+                resolveSession(item.sessionId());
+            }
+        }
+        return agentService.chatBatch(items);
+    }
+
+    /**
+     * 未携带会话ID时创建新会话，携带的会话ID格式非法时返回 400。
+     */
+    private static String resolveSession(String sessionId) {
+        if (!StringUtils.hasText(sessionId)) {
+            return IdUtil.generateSessionId();
+        }
+        if (!IdUtil.isValidSessionId(sessionId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    SESSION_HEADER + " 只能包含字母、数字、'-' 和 '_'，且不超过 64 个字符");
+        }
+        return sessionId;
+    }
+
+    /**
+     * 模型调用繁忙时快速失败，返回 503 并提示客户端稍后重试。
+     */
+    @ExceptionHandler(ModelBusyException.class)
+    public ResponseEntity<Map<String, String>> handleBusy(ModelBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "busy", "message", e.getMessage()));
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,526 @@
+package yuuine.lang2file.tool.FileTool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import yuuine.lang2file.config.FileToolProperties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 原子文件写入。
+ * <p>
+ * 覆盖写入时先把内容分块编码写入同目录下的临时文件，再原子重命名为目标文件，任何时刻目标文件要么是旧内容、要么是完整的新内容。
+ * 目标是符号链接时写入链接指向的文件，临时文件放在真实文件旁边；临时文件沿用原文件的权限和属主。
+ * 写入前比较内容摘要：新内容与文件现有内容相同时直接跳过，不产生任何写入和刷盘。已知文件的摘要按（大小、修改时间）缓存，
+ * 反复写入相同的生成文件时无需重新读取文件。
+ * </p>
+ * <p>
+ * 刷盘方式见 {@link FileToolProperties.Durability}：{@code GROUP} 模式下写入方写完临时文件后等待后台线程的下一次刷盘，
+ * 后台线程每个周期依次刷新本周期内的临时文件并重命名，同一目录只刷新一次。
+ * </p>
+ * <p>
+ * 同一文件的写入按路径加锁串行执行，组提交时只有同一文件的后续写入需要等待本次刷盘。替换文件后丢弃 {@link LineIndexCache} 中该文件的行索引。
+ * 写入计数注册为监控指标 {@code lang2file.file.writes}。
+ * </p>
+ */
+@Slf4j
+@Component
+public class AtomicFileWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 解析悬空符号链接时的最大层数
+    private static final int MAX_LINK_DEPTH = 40;
+
+    private final FileToolProperties.Write config;
+    private final LineIndexCache lineIndexCache;
+
+    // 按路径加锁，不同文件的写入互不阻塞
+    private final PathLocks locks = new PathLocks();
+
+    // 已知文件的内容摘要，按访问顺序淘汰
+    private final Map<Path, Fingerprint> fingerprints;
+
+    // GROUP 模式下等待刷盘的写入
+    private final Object groupLock = new Object();
+    private List<PendingWrite> pending = new ArrayList<>();
+    private final ScheduledExecutorService flusher;
+
+    private final Counter written;
+    private final Counter skipped;
+    private final Counter appended;
+
+    public AtomicFileWriter(FileToolProperties properties, LineIndexCache lineIndexCache, MeterRegistry meterRegistry) {
+        this.config = properties.getWrite();
+        this.lineIndexCache = lineIndexCache;
+        int capacity = Math.max(config.getFingerprintCacheSize(), 1);
+        this.fingerprints = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Fingerprint> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        if (config.getDurability() == FileToolProperties.Durability.GROUP) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("file-write-flusher-", 0).daemon(true).factory());
+            long intervalMillis = Math.max(config.getGroupInterval().toMillis(), 1);
+            flusher.scheduleWithFixedDelay(this::flushGroup, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+
+        this.written = Counter.builder("lang2file.file.writes").tag("result", "written").register(meterRegistry);
+        this.skipped = Counter.builder("lang2file.file.writes").tag("result", "skipped").register(meterRegistry);
+        this.appended = Counter.builder("lang2file.file.writes").tag("result", "appended").register(meterRegistry);
+    }
+
+    /**
+     * 写入结果。
+     *
+     * @param size    写入后的文件大小
+     * @param changed 是否实际写入；内容未变化而跳过时为 false
+     */
+    public record Result(long size, boolean changed) {
+    }
+
+    /**
+     * 用 {@code content} 原子替换文件内容。
+     *
+     * @throws java.nio.charset.CharacterCodingException 内容包含该编码无法表示的字符
+     */
+    public Result write(Path path, CharSequence content, Charset charset) throws IOException {
+        Path target = resolve(path);
+        PathLocks.Handle lock = locks.lock(target);
+        try {
+            // 1. 目标文件存在时先计算新内容的摘要，与现有内容相同则跳过
+            MessageDigest digest = newDigest();
+            if (config.isSkipUnchanged() && Files.isRegularFile(target)) {
+                long size = encode(content, charset, digest, null);
+                byte[] hash = digest.digest();
+                if (size == Files.size(target) && Arrays.equals(hash, existingHash(target))) {
+                    skipped.increment();
+                    log.debug("文件内容未变化，跳过写入: {}", target);
+                    return new Result(size, false);
+                }
+            }
+
+            // 2. 写入临时文件，同时计算摘要
+            digest.reset();
+            long size = replace(target, channel -> encode(content, charset, digest, channel));
+            invalidateLineIndex(path, target);
+            remember(target, digest.digest());
+            written.increment();
+            return new Result(size, true);
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * 写入临时文件的内容来源。
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * 将完整的新内容写入临时文件通道。
+         */
+        void writeTo(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * 由 {@code writer} 生成新内容并原子替换文件，适用于基于原文件的流式改写（如局部编辑）。
+     * 整个过程持有该文件的写锁；{@code writer} 抛出异常时放弃本次写入，原文件保持不变。
+     */
+    public Result rewrite(Path path, ContentWriter writer) throws IOException {
+        Path target = resolve(path);
+        PathLocks.Handle lock = locks.lock(target);
+        try {
+            long size = replace(target, writer);
+            invalidateLineIndex(path, target);
+            synchronized (fingerprints) {
+                fingerprints.remove(target);
+            }
+            written.increment();
+            return new Result(size, true);
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * 写入同目录下的临时文件，按刷盘方式重命名为目标文件。调用时必须持有该文件的写锁。
+     *
+     * @return 新文件的大小
+     */
+    private long replace(Path target, ContentWriter writer) throws IOException {
+        Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        long size;
+        try {
+            copyAttributes(target, temp);
+            writer.writeTo(channel);
+            size = channel.size();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        switch (config.getDurability()) {
+            case NONE -> commit(channel, temp, target, false);
+            case FDATASYNC -> {
+                commit(channel, temp, target, true);
+                forceDirectory(target.getParent());
+            }
+            case GROUP -> awaitGroup(new PendingWrite(channel, temp, target, new CompletableFuture<>()));
+        }
+        return size;
+    }
+
+    /**
+     * 在文件末尾追加内容。追加无法通过重命名保证原子性，按刷盘方式刷新文件数据。
+     */
+    public Result append(Path path, CharSequence content, Charset charset) throws IOException {
+        Path target = resolve(path);
+        PathLocks.Handle lock = locks.lock(target);
+        try {
+            // 先完整编码一遍校验字符，避免编码失败时只追加了一部分
+            encode(content, charset, null, null);
+            FileChannel channel = FileChannel.open(target,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            try {
+                encode(content, charset, null, channel);
+                switch (config.getDurability()) {
+                    case NONE -> channel.close();
+                    case FDATASYNC -> {
+                        channel.force(false);
+                        channel.close();
+                    }
+                    case GROUP -> awaitGroup(new PendingWrite(channel, null, target, new CompletableFuture<>()));
+                }
+            } finally {
+                if (channel.isOpen()) {
+                    channel.close();
+                }
+            }
+            synchronized (fingerprints) {
+                fingerprints.remove(target);
+            }
+            appended.increment();
+            return new Result(Files.size(target), true);
+        } finally {
+            lock.close();
+        }
+    }
+
+    // ========== 组提交 ==========
+
+    /**
+     * 一次等待组提交的写入。{@code temp} 为 null 时只需刷新 {@code channel}（追加写入）。
+     */
+    private record PendingWrite(FileChannel channel, Path temp, Path target, CompletableFuture<Void> done) {
+    }
+
+    private void awaitGroup(PendingWrite write) throws IOException {
+        synchronized (groupLock) {
+            pending.add(write);
+        }
+        if (flusher.isShutdown()) {
+            // 关闭后到达的写入直接在当前线程完成
+            flushGroup();
+        }
+        try {
+            write.done().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 后台刷盘：依次刷新本周期内的写入并重命名，最后对涉及的目录各刷新一次。
+     */
+    private void flushGroup() {
+        List<PendingWrite> batch;
+        synchronized (groupLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+
+        List<PendingWrite> renamed = new ArrayList<>(batch.size());
+        Set<Path> directories = new LinkedHashSet<>();
+        for (PendingWrite write : batch) {
+            try {
+                if (write.temp() == null) {
+                    write.channel().force(false);
+                    write.channel().close();
+                    write.done().complete(null);
+                } else {
+                    commit(write.channel(), write.temp(), write.target(), true);
+                    directories.add(write.target().getParent());
+                    renamed.add(write);
+                }
+            } catch (IOException | RuntimeException e) {
+                write.done().completeExceptionally(e);
+            }
+        }
+        for (Path directory : directories) {
+            forceDirectory(directory);
+        }
+        renamed.forEach(write -> write.done().complete(null));
+        log.debug("组提交完成：写入 {} 个，目录刷盘 {} 个", batch.size(), directories.size());
+    }
+
+    // ========== 内部方法 ==========
+
+    /**
+     * 关闭临时文件并原子重命名为目标文件；失败时删除临时文件。
+     * <p>
+     * 目标文件有多个硬链接时，重命名会使其与其他链接分离，此时改为把临时文件内容拷贝回目标文件，放弃原子性以保留链接。
+     * </p>
+     */
+    private static void commit(FileChannel channel, Path temp, Path target, boolean force) throws IOException {
+        try {
+            try (channel) {
+                if (force) {
+                    channel.force(false);
+                }
+            }
+            if (linkCount(target) > 1) {
+                copyInPlace(temp, target, force);
+                Files.delete(temp);
+            } else {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static void copyInPlace(Path temp, Path target, boolean force) throws IOException {
+        try (FileChannel in = FileChannel.open(temp, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            for (long done = 0; done < size; ) {
+                long transferred = out.transferFrom(in, done, size - done);
+                if (transferred <= 0) {
+                    throw new IOException("拷贝文件内容中断");
+                }
+                done += transferred;
+            }
+            if (force) {
+                out.force(false);
+            }
+        }
+    }
+
+    /**
+     * 文件的硬链接数；文件不存在或平台不支持时返回 1。
+     */
+    private static int linkCount(Path target) {
+        try {
+            return (Integer) Files.getAttribute(target, "unix:nlink", LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * 刷新目录，使重命名落盘；部分平台不支持打开目录，忽略即可。
+     */
+    private static void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("目录刷盘失败（平台可能不支持）: {}", directory, e);
+        }
+    }
+
+    /**
+     * 分块编码内容，更新摘要并写入通道；{@code out} 为 null 时只计算摘要和长度。
+     *
+     * @return 编码后的字节数
+     */
+    private static long encode(CharSequence content, Charset charset, MessageDigest digest, WritableByteChannel out)
+            throws IOException {
+        CharsetEncoder encoder = charset.newEncoder();
+        CharBuffer in = CharBuffer.wrap(content);
+        ByteBuffer buffer = out == null ? ByteBuffer.allocate(BUFFER_SIZE) : ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long total = 0;
+        boolean flushing = false;
+        while (true) {
+            CoderResult result = flushing ? encoder.flush(buffer) : encoder.encode(in, buffer, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            buffer.flip();
+            total += buffer.remaining();
+            if (digest != null) {
+                digest.update(buffer.duplicate());
+            }
+            if (out != null) {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            buffer.clear();
+            if (result.isUnderflow()) {
+                if (flushing) {
+                    return total;
+                }
+                flushing = true;
+            }
+        }
+    }
+
+    /**
+     * 文件现有内容的摘要：大小和修改时间与缓存一致时直接使用缓存，否则读取文件计算。
+     */
+    private byte[] existingHash(Path target) throws IOException {
+        long size = Files.size(target);
+        long lastModified = Files.getLastModifiedTime(target).toMillis();
+        synchronized (fingerprints) {
+            Fingerprint cached = fingerprints.get(target);
+            if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+                return cached.hash();
+            }
+        }
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        byte[] hash = digest.digest();
+        synchronized (fingerprints) {
+            fingerprints.put(target, new Fingerprint(size, lastModified, hash));
+        }
+        return hash;
+    }
+
+    private void remember(Path target, byte[] hash) throws IOException {
+        Fingerprint fingerprint = new Fingerprint(Files.size(target),
+                Files.getLastModifiedTime(target).toMillis(), hash);
+        synchronized (fingerprints) {
+            fingerprints.put(target, fingerprint);
+        }
+    }
+
+    /**
+     * 覆盖已有文件时沿用其权限和属主，避免可执行脚本等被改写后丢失权限。
+     * 修改属主需要相应权限，失败时保留当前用户为属主。
+     */
+    private static void copyAttributes(Path target, Path temp) {
+        PosixFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(target, PosixFileAttributes.class);
+            Files.setPosixFilePermissions(temp, attributes.permissions());
+        } catch (NoSuchFileException | UnsupportedOperationException e) {
+            // 新文件或非 POSIX 文件系统
+            return;
+        } catch (IOException e) {
+            log.debug("复制文件权限失败: {}", target, e);
+            return;
+        }
+        try {
+            PosixFileAttributeView view = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+            if (!attributes.owner().equals(Files.getOwner(temp))) {
+                view.setOwner(attributes.owner());
+            }
+            if (!attributes.group().equals(view.readAttributes().group())) {
+                view.setGroup(attributes.group());
+            }
+        } catch (IOException e) {
+            log.debug("复制文件属主失败: {}", target, e);
+        }
+    }
+
+    /**
+     * 写入的真实文件：解析符号链接，写入链接指向的文件，而不是把链接替换为普通文件。
+     * 目标文件不存在时（包括悬空链接指向的文件）按路径新建。
+     */
+    private static Path resolve(Path path) throws IOException {
+        Path target = path.toAbsolutePath().normalize();
+        if (Files.exists(target)) {
+            return target.toRealPath();
+        }
+        for (int depth = 0; depth < MAX_LINK_DEPTH && Files.isSymbolicLink(target); depth++) {
+            target = target.resolveSibling(Files.readSymbolicLink(target)).normalize();
+        }
+        return target;
+    }
+
+    /**
+     * 文件被整体替换后，旧的行索引不再可信；通过符号链接写入时两个路径下的索引都要丢弃。
+     * 追加写入不需要，索引会校验尾部后增量扩展。
+     */
+    private void invalidateLineIndex(Path path, Path target) {
+        lineIndexCache.invalidate(target);
+        if (!target.equals(path.toAbsolutePath().normalize())) {
+            lineIndexCache.invalidate(path);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 文件内容摘要。
+     */
+    private record Fingerprint(long size, long lastModified, byte[] hash) {
+    }
+
+    @Override
+    public void close() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 完成剩余的写入，避免写入方一直等待
+        flushGroup();
+    }
+}
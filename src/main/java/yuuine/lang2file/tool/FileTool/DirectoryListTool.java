@@ -1,30 +1,102 @@
 package yuuine.lang2file.tool.FileTool;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Service;
+import yuuine.lang2file.config.FileToolProperties;
+import yuuine.lang2file.tool.ToolAccess;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
 
+/**
+ * 列出目录内容。
+ * <p>
+ * 基于 {@link Files#walkFileTree} 单次遍历，每个条目的属性只读取一次。支持最大深度、通配过滤和排序，
+ * 每页最多返回 {@code maxEntries} 个条目，未列完时返回续列游标。
+ * </p>
+ * <p>
+ * 遍历时只保留排序最靠前的一页条目（有界堆），内存占用与目录规模无关。按名称排序时顺序等同于
+ * 子项有序的先序遍历，整棵子树排在游标之前或当前页之后时直接跳过，不再进入；按大小、修改时间排序需要遍历全部条目。
+ * </p>
+ */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class DirectoryListTool extends FileOperationTool {
 
-    @Tool(name = "list_directory", description = "列出指定目录下的文件和子目录")
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final FileToolProperties properties;
+
+    /**
+     * 排序方式。
+     */
+    private enum Sort {
+        NAME, SIZE, MTIME;
+
+        static Sort parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NAME;
+            }
+            return switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "name" -> NAME;
+                case "size" -> SIZE;
+                case "mtime", "time", "modified" -> MTIME;
+                default -> null;
+            };
+        }
+    }
+
+    @ToolAccess(value = ToolAccess.Mode.READ_ONLY, paths = "dirPath")
+    @Tool(name = "list_directory", description = "列出指定目录下的文件和子目录，支持递归、最大深度、通配过滤、排序和分页；"
+            + "未列完时返回游标，传入游标继续列出下一页")
     public String listDirectory(
             @ToolParam(description = "目录路径") String dirPath,
-            @ToolParam(description = "是否递归列出所有内容（默认false）") Boolean recursive) {
+            @ToolParam(description = "是否递归列出所有内容（默认false）", required = false) Boolean recursive,
+            @ToolParam(description = "最大深度（1表示只列直接子项，递归时默认10）", required = false) Integer maxDepth,
+            @ToolParam(description = "单页最多返回的条目数（默认200）", required = false) Integer maxEntries,
+            @ToolParam(description = "通配过滤，如 *.java；包含 / 时匹配相对路径，否则匹配文件名", required = false) String glob,
+            @ToolParam(description = "排序方式：name（名称，默认）、size（大小降序）、mtime（修改时间降序）", required = false) String sort,
+            @ToolParam(description = "上一页返回的游标，传入时继续列出下一页", required = false) String cursor) {
 
-        logCall("list_directory", dirPath, recursive);
+        logCall("list_directory", dirPath, recursive, maxDepth, maxEntries, glob, sort, cursor);
 
         if (dirPath == null || dirPath.trim().isEmpty()) {
             return "列出失败：目录路径不能为空";
         }
 
+        // 1. 参数解析
+        FileToolProperties.Listing config = properties.getListing();
         boolean isRecursive = (recursive != null && recursive);
+        int depth = maxDepth != null ? maxDepth : (isRecursive ? config.getDefaultMaxDepth() : 1);
+        if (depth < 1) {
+            return "列出失败：最大深度必须大于等于 1";
+        }
+        int limit = maxEntries != null ? maxEntries : config.getDefaultMaxEntries();
+        if (limit < 1) {
+            return "列出失败：条目数必须大于等于 1";
+        }
+        limit = Math.min(limit, config.getMaxEntriesLimit());
+        Sort order = Sort.parse(sort);
+        if (order == null) {
+            return "列出失败：不支持的排序方式 '" + sort + "'，可选 name、size、mtime";
+        }
 
         try {
             Path path = normalizeAndSecure(dirPath.trim());
@@ -41,33 +113,254 @@ public class DirectoryListTool extends FileOperationTool {
                 return "列出失败：没有读取权限";
             }
 
-            StringBuilder result = new StringBuilder();
-            if (isRecursive) {
-                // 递归列出所有文件和目录
-                try (Stream<Path> walk = Files.walk(path)) {
-                    String list = walk
-                            .map(p -> path.relativize(p).toString())
-                            .filter(p -> !p.isEmpty()) // 排除根目录自身
-                            .map(p -> Files.isDirectory(path.resolve(p)) ? "[DIR] " + p : "[FILE] " + p)
-                            .collect(Collectors.joining("\n"));
-                    result.append("目录 ").append(path).append(" 的内容（递归）：\n");
-                    result.append(list.isEmpty() ? "（空目录）" : list);
+            PathMatcher matcher = null;
+            boolean matchRelative = false;
+            if (glob != null && !glob.isBlank()) {
+                try {
+                    matcher = path.getFileSystem().getPathMatcher("glob:" + glob.trim());
+                } catch (IllegalArgumentException e) {
+                    return "列出失败：通配模式无效 '" + glob + "'";
                 }
-            } else {
-                // 仅列出直接子项
-                try (Stream<Path> list = Files.list(path)) {
-                    String listStr = list
-                            .map(p -> Files.isDirectory(p) ? "[DIR] " + p.getFileName() : "[FILE] " + p.getFileName())
-                            .collect(Collectors.joining("\n"));
-                    result.append("目录 ").append(path).append(" 的内容：\n");
-                    result.append(listStr.isEmpty() ? "（空目录）" : listStr);
+                matchRelative = glob.contains("/");
+            }
+
+            Entry after = null;
+            if (cursor != null && !cursor.isBlank()) {
+                after = decodeCursor(cursor, order, path);
+                if (after == null) {
+                    return "列出失败：无效的游标（游标与排序方式不匹配或已损坏）";
                 }
             }
 
+            // 2. 遍历并保留一页条目
+            Collector collector = new Collector(path, order, limit, after, matcher, matchRelative);
+            Files.walkFileTree(path, EnumSet.noneOf(FileVisitOption.class), depth, collector);
+
+            // 3. 输出
+            List<Entry> page = collector.page();
+            StringBuilder result = new StringBuilder();
+            result.append("目录 ").append(path).append(" 的内容");
+            List<String> options = new ArrayList<>();
+            if (depth > 1) {
+                options.add("递归，最大深度 " + depth);
+            }
+            if (matcher != null) {
+                options.add("过滤 " + glob.trim());
+            }
+            options.add(switch (order) {
+                case NAME -> "按名称排序";
+                case SIZE -> "按大小降序";
+                case MTIME -> "按修改时间降序";
+            });
+            result.append("（").append(String.join("，", options)).append("）：\n");
+
+            if (page.isEmpty()) {
+                result.append(after == null ? "（空目录）" : "（没有更多条目）");
+            }
+            for (Entry entry : page) {
+                result.append(format(entry, order)).append('\n');
+            }
+            if (!page.isEmpty()) {
+                result.append(String.format("本页 %d 项，已遍历 %d 项", page.size(), collector.visited));
+                if (collector.failed > 0) {
+                    result.append(String.format("，%d 项无法访问已跳过", collector.failed));
+                }
+            }
+            if (collector.more && !page.isEmpty()) {
+                result.append(String.format("\n...[还有更多条目，继续列出请传入 cursor=\"%s\"]",
+                        encodeCursor(page.getLast(), order)));
+            }
             return result.toString();
 
         } catch (Exception e) {
             return handleException(e, "列出目录");
         }
     }
+
+    // ========== 遍历 ==========
+
+    /**
+     * 目录条目。
+     *
+     * @param path         相对于列出目录的路径
+     * @param directory    是否为目录
+     * @param link         是否为符号链接
+     * @param size         文件大小，目录为 0
+     * @param lastModified 修改时间（毫秒）
+     */
+    private record Entry(Path path, boolean directory, boolean link, long size, long lastModified) {
+    }
+
+    /**
+     * 遍历时按排序保留最靠前的 {@code limit} 个、且排在游标之后的条目。
+     */
+    private static final class Collector extends SimpleFileVisitor<Path> {
+
+        private final Path root;
+        private final Sort order;
+        private final Comparator<Entry> comparator;
+        private final int limit;
+        private final Entry after;
+        private final PathMatcher matcher;
+        private final boolean matchRelative;
+
+        // 大顶堆，堆顶为当前页中排序最靠后的条目
+        private final PriorityQueue<Entry> heap;
+
+        private long visited;
+        private long failed;
+        private boolean more;
+
+        Collector(Path root, Sort order, int limit, Entry after, PathMatcher matcher, boolean matchRelative) {
+            this.root = root;
+            this.order = order;
+            this.comparator = comparator(order);
+            this.limit = limit;
+            this.after = after;
+            this.matcher = matcher;
+            this.matchRelative = matchRelative;
+            this.heap = new PriorityQueue<>(limit + 1, comparator.reversed());
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            if (dir.equals(root)) {
+                return FileVisitResult.CONTINUE;
+            }
+            Path relative = root.relativize(dir);
+            if (order == Sort.NAME) {
+                // 整棵子树都排在游标之前
+                if (after != null && compareByName(relative, after.path()) < 0 && !after.path().startsWith(relative)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                // 整棵子树都排在当前页之后
+                if (heap.size() >= limit && compareByName(relative, heap.peek().path()) > 0) {
+                    more = true;
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+            }
+            offer(relative, attrs);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            offer(root.relativize(file), attrs);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            failed++;
+            return FileVisitResult.CONTINUE;
+        }
+
+        private void offer(Path relative, BasicFileAttributes attrs) {
+            visited++;
+            if (matcher != null && !matcher.matches(matchRelative ? relative : relative.getFileName())) {
+                return;
+            }
+            Entry entry = new Entry(relative, attrs.isDirectory(), attrs.isSymbolicLink(),
+                    attrs.isDirectory() ? 0 : attrs.size(), attrs.lastModifiedTime().toMillis());
+            if (after != null && comparator.compare(entry, after) <= 0) {
+                return;
+            }
+            if (heap.size() < limit) {
+                heap.add(entry);
+                return;
+            }
+            more = true;
+            if (comparator.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        List<Entry> page() {
+            List<Entry> page = new ArrayList<>(heap);
+            page.sort(comparator);
+            return page;
+        }
+    }
+
+    private static Comparator<Entry> comparator(Sort order) {
+        Comparator<Entry> byName = (a, b) -> compareByName(a.path(), b.path());
+        return switch (order) {
+            case NAME -> byName;
+            case SIZE -> Comparator.comparingLong(Entry::size).reversed().thenComparing(byName);
+            case MTIME -> Comparator.comparingLong(Entry::lastModified).reversed().thenComparing(byName);
+        };
+    }
+
+    /**
+     * 逐级比较路径名，使目录的全部子项紧跟在目录之后。
+     */
+    private static int compareByName(Path a, Path b) {
+        int common = Math.min(a.getNameCount(), b.getNameCount());
+        for (int i = 0; i < common; i++) {
+            int result = a.getName(i).toString().compareTo(b.getName(i).toString());
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(a.getNameCount(), b.getNameCount());
+    }
+
+    // ========== 输出与游标 ==========
+
+    private static String format(Entry entry, Sort order) {
+        String type = entry.link() ? "[LINK] " : entry.directory() ? "[DIR] " : "[FILE] ";
+        StringBuilder line = new StringBuilder(type).append(entry.path());
+        if (!entry.directory()) {
+            line.append(" (").append(formatSize(entry.size()));
+            if (order == Sort.MTIME) {
+                line.append("，").append(TIME_FORMAT.format(Instant.ofEpochMilli(entry.lastModified())));
+            }
+            line.append(')');
+        } else if (order == Sort.MTIME) {
+            line.append(" (").append(TIME_FORMAT.format(Instant.ofEpochMilli(entry.lastModified()))).append(')');
+        }
+        return line.toString();
+    }
+
+    private static String formatSize(long size) {
+        if (size < 1024) {
+            return size + " B";
+        }
+        if (size < 1024 * 1024) {
+            return String.format("%.1f KB", size / 1024.0);
+        }
+        if (size < 1024L * 1024 * 1024) {
+            return String.format("%.1f MB", size / (1024.0 * 1024.0));
+        }
+        return String.format("%.1f GB", size / (1024.0 * 1024.0 * 1024.0));
+    }
+
+    /**
+     * 游标记录排序方式、上一页最后一个条目的排序键与相对路径。
+     */
+    private static String encodeCursor(Entry last, Sort order) {
+        long key = switch (order) {
+            case NAME -> 0;
+            case SIZE -> last.size();
+            case MTIME -> last.lastModified();
+        };
+        String raw = "d1|" + order.name() + "|" + key + "|" + last.path();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Entry decodeCursor(String cursor, Sort order, Path root) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || !"d1".equals(parts[0]) || !order.name().equals(parts[1])) {
+                return null;
+            }
+            long key = Long.parseLong(parts[2]);
+            Path path = root.getFileSystem().getPath(parts[3]);
+            return new Entry(path, false, false, order == Sort.SIZE ? key : 0, order == Sort.MTIME ? key : 0);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,289 @@
+package yuuine.lang2file.tool.FileTool;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Service;
+import yuuine.lang2file.config.FileToolProperties;
+import yuuine.lang2file.tool.ToolAccess;
+import yuuine.lang2file.util.GlobUtil;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 批量读取多个文本文件，一次工具调用代替多次 {@code read_file}。
+ * <p>
+ * 文件可以通过路径列表或通配路径指定，在虚拟线程上并发读取。输出受两级预算约束：
+ * 单个文件最多输出 {@code maxCharsPerFile} 个字符（只读取所需的部分，不加载整个文件），
+ * 全部文件合计最多输出 {@code maxTotalChars} 个字符，按文件实际长度公平分配——短文件完整输出，
+ * 剩余预算由较长的文件平分。被截断的文件会注明截断位置与文件大小。
+ * </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FileBatchReadTool extends FileOperationTool {
+
+    private final FileToolProperties properties;
+
+    @ToolAccess(value = ToolAccess.Mode.READ_ONLY, paths = {"filePaths", "glob"})
+    @Tool(name = "read_files", description = "批量读取多个文本文件（路径列表或通配路径，如 /etc/app/*.yml），"
+            + "并发读取并合并输出，单个文件和总输出长度有上限，超出部分截断并注明")
+    public String readFiles(
+            @ToolParam(description = "文件完整路径列表", required = false) List<String> filePaths,
+            @ToolParam(description = "通配路径（支持 *、**、?、{a,b}），与路径列表二选一或同时使用", required = false) String glob,
+            @ToolParam(description = "文件编码（如UTF-8、GBK，默认UTF-8）", required = false) String encoding) {
+
+        logCall("read_files", filePaths, glob, encoding);
+        FileToolProperties.BatchRead config = properties.getBatchRead();
+
+        // 1. 确定编码
+        Charset charset = StandardCharsets.UTF_8;
+        if (encoding != null && !encoding.trim().isEmpty()) {
+            try {
+                charset = Charset.forName(encoding.trim());
+            } catch (IllegalArgumentException e) {
+                return "读取失败：不支持的编码格式 '" + encoding + "'";
+            }
+        }
+
+        // 2. 收集文件：显式路径在前，通配匹配在后，去重并限制数量
+        Set<Path> files = new LinkedHashSet<>();
+        List<String> notes = new ArrayList<>();
+        try {
+            if (filePaths != null) {
+                for (String filePath : filePaths) {
+                    if (filePath != null && !filePath.isBlank()) {
+                        files.add(normalizeAndSecure(filePath.trim()));
+                    }
+                }
+            }
+            if (glob != null && !glob.isBlank()) {
+                int before = files.size();
+                boolean limited = expandGlob(glob.trim(), files, config.getMaxFiles());
+                if (files.size() == before) {
+                    notes.add("通配路径 " + glob.trim() + " 未匹配到文件");
+                }
+                if (limited) {
+                    notes.add("通配路径匹配的文件超过上限 " + config.getMaxFiles() + " 个，仅读取前 " + config.getMaxFiles() + " 个");
+                }
+            }
+        } catch (Exception e) {
+            return handleException(e, "批量读取文件");
+        }
+        if (files.isEmpty()) {
+            return notes.isEmpty() ? "读取失败：文件路径列表和通配路径不能同时为空" : "读取失败：" + String.join("；", notes);
+        }
+        List<Path> targets = files.stream().limit(config.getMaxFiles()).toList();
+        if (files.size() > targets.size() && notes.stream().noneMatch(n -> n.contains("超过上限"))) {
+            notes.add("文件数超过上限 " + config.getMaxFiles() + " 个，仅读取前 " + config.getMaxFiles() + " 个");
+        }
+
+        // 3. 并发读取，每个文件最多读取单文件预算的字符数
+        List<FileContent> contents = readConcurrently(targets, charset, config.getMaxCharsPerFile());
+
+        // 4. 分配总预算并输出
+        int[] budgets = allocate(contents, config.getMaxTotalChars());
+        return render(contents, budgets, charset, notes);
+    }
+
+    /**
+     * 遍历通配路径的基准目录，收集匹配的普通文件。
+     *
+     * @return 匹配数量超过上限时返回 true
+     */
+    private boolean expandGlob(String glob, Set<Path> files, int maxFiles) throws IOException {
+        String baseStr = GlobUtil.baseDirectory(glob);
+        Path base = normalizeAndSecure(baseStr.isEmpty() ? "." : baseStr);
+        if (!Files.isDirectory(base)) {
+            return false;
+        }
+        String pattern = glob.substring(baseStr.length()).replaceFirst("^[/\\\\]+", "");
+        PathMatcher matcher = base.getFileSystem().getPathMatcher("glob:" + pattern);
+        int depth = GlobUtil.isRecursive(pattern) ? Integer.MAX_VALUE : pattern.split("[/\\\\]").length;
+
+        boolean[] limited = new boolean[1];
+        Files.walkFileTree(base, EnumSet.noneOf(FileVisitOption.class), depth, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && matcher.matches(base.relativize(file))) {
+                    if (files.size() >= maxFiles) {
+                        limited[0] = true;
+                        return FileVisitResult.TERMINATE;
+                    }
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                // 无权限访问的子目录跳过
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return limited[0];
+    }
+
+    private List<FileContent> readConcurrently(List<Path> targets, Charset charset, int maxChars) {
+        List<FileContent> contents = new ArrayList<>(targets.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<FileContent>> futures = new ArrayList<>(targets.size());
+            for (Path target : targets) {
+                futures.add(executor.submit(() -> readHead(target, charset, maxChars)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    contents.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    // 单个文件的 Error（如超大文件导致的 OutOfMemoryError）只记为该文件失败，不中断整批读取
+                    Exception cause = e.getCause() instanceof Exception exception
+                            ? exception
+                            : new IllegalStateException(e.getCause());
+                    contents.add(FileContent.failed(targets.get(i), handleException(cause, "读取文件")));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    contents.add(FileContent.failed(targets.get(i), "读取被中断"));
+                }
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * 读取文件开头最多 {@code maxChars} 个字符，多读一个字符用于判断是否还有剩余内容。
+     */
+    private FileContent readHead(Path path, Charset charset, int maxChars) throws IOException {
+        if (!Files.exists(path)) {
+            return FileContent.failed(path, "文件不存在");
+        }
+        if (!Files.isRegularFile(path)) {
+            return FileContent.failed(path, "路径不是文件");
+        }
+        if (!Files.isReadable(path)) {
+            return FileContent.failed(path, "没有读取权限");
+        }
+        long size = Files.size(path);
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try (Reader reader = new InputStreamReader(Files.newInputStream(path), decoder)) {
+            char[] buffer = new char[(int) Math.min(maxChars + 1L, Math.max(size, 0) + 1)];
+            int read = 0;
+            while (read < buffer.length) {
+                int n = reader.read(buffer, read, buffer.length - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+            // 字符数不超过字节数，缓冲区按两者较小值分配；读满 maxChars + 1 个字符说明还有剩余
+            return new FileContent(path, size, new String(buffer, 0, Math.min(read, maxChars)),
+                    read > maxChars, null);
+        }
+    }
+
+    /**
+     * 按文件内容长度公平分配总预算：从短到长依次分配，每个文件最多获得剩余预算的平均值。
+     */
+    private static int[] allocate(List<FileContent> contents, int totalBudget) {
+        int[] budgets = new int[contents.size()];
+        Integer[] order = new Integer[contents.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> contents.get(i).length()));
+        int remaining = totalBudget;
+        for (int k = 0; k < order.length; k++) {
+            int i = order[k];
+            int share = remaining / (order.length - k);
+            budgets[i] = Math.min(contents.get(i).length(), share);
+            remaining -= budgets[i];
+        }
+        return budgets;
+    }
+
+    private static String render(List<FileContent> contents, int[] budgets, Charset charset, List<String> notes) {
+        int succeeded = 0;
+        int truncated = 0;
+        int outputChars = 0;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < contents.size(); i++) {
+            FileContent content = contents.get(i);
+            body.append("\n=== [").append(i + 1).append("] ").append(content.path());
+            if (content.error() != null) {
+                body.append(" ===\n读取失败：").append(content.error()).append('\n');
+                continue;
+            }
+            succeeded++;
+            body.append("（").append(formatSize(content.size())).append("，").append(charset.name()).append("）===\n");
+
+            String text = content.text();
+            int shown = budgets[i];
+            body.append(text, 0, shown);
+            outputChars += shown;
+            if (shown < text.length() || content.truncated()) {
+                truncated++;
+                if (!text.isEmpty() && text.charAt(Math.max(shown - 1, 0)) != '\n') {
+                    body.append('\n');
+                }
+                body.append("...[已截断：仅显示前 ").append(shown).append(" 个字符，文件共 ")
+                        .append(content.size()).append(" 字节，其余内容可使用 read_file 读取]\n");
+            } else if (!text.endsWith("\n")) {
+                body.append('\n');
+            }
+        }
+
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("批量读取完成：共 %d 个文件，成功 %d 个，截断 %d 个，输出 %d 字符",
+                contents.size(), succeeded, truncated, outputChars));
+        for (String note : notes) {
+            result.append("\n注意：").append(note);
+        }
+        return result.append('\n').append(body).toString();
+    }
+
+    private static String formatSize(long size) {
+        if (size < 1024) {
+            return size + " 字节";
+        }
+        if (size < 1024 * 1024) {
+            return String.format("%.1f KB", size / 1024.0);
+        }
+        return String.format("%.1f MB", size / (1024.0 * 1024.0));
+    }
+
+    /**
+     * 单个文件的读取结果。
+     *
+     * @param path      文件路径
+     * @param size      文件字节数
+     * @param text      读取到的内容（不超过单文件预算）
+     * @param truncated 文件是否还有未读取的内容
+     * @param error     失败原因，成功时为 null
+     */
+    private record FileContent(Path path, long size, String text, boolean truncated, String error) {
+
+        static FileContent failed(Path path, String error) {
+            return new FileContent(path, 0, "", false, error);
+        }
+
+        int length() {
+            return text.length();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Service;
+import yuuine.lang2file.tool.ToolAccess;
 
 import java.io.IOException;
 import java.nio.file.*;
@@ -20,6 +21,7 @@ public class FileCreateTool {
      * @param extension 文件扩展名（例如：txt, pdf, doc，不需要加点）
      * @return 创建结果
      */
+    @ToolAccess(value = ToolAccess.Mode.MUTATING, paths = "directory")
     @Tool(name = "create_file", description = "在指定目录创建空白文件")
     public String createFile(@ToolParam(description = "目标目录路径") String directory,
                              @ToolParam(description = "文件名（不含扩展名）") String fileName,
@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Service;
+import yuuine.lang2file.tool.ToolAccess;
 
 import java.io.IOException;
 import java.nio.file.*;
@@ -18,6 +19,7 @@ public class FileDeleteTool {
      * @param filePath 要删除的文件完整路径
      * @return 删除结果
      */
+    @ToolAccess(value = ToolAccess.Mode.MUTATING, paths = "filePath")
     @Tool(name = "delete_file", description = "删除指定路径的文件")
     public String deleteFile(@ToolParam(description = "要删除的文件完整路径") String filePath) {
 
@@ -93,6 +95,7 @@ public class FileDeleteTool {
      * @param fileName  文件名（包含扩展名）
      * @return 删除结果
      */
+    @ToolAccess(value = ToolAccess.Mode.MUTATING, paths = "directory")
     @Tool(name = "delete_file_by_parts", description = "根据目录和文件名删除文件")
     public String deleteFileByParts(
             @ToolParam(description = "文件所在目录") String directory,
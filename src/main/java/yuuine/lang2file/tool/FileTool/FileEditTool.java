@@ -0,0 +1,547 @@
+package yuuine.lang2file.tool.FileTool;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Service;
+import yuuine.lang2file.config.FileToolProperties;
+import yuuine.lang2file.tool.ToolAccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 局部编辑文本文件，无需读出并写回整个文件。
+ * <p>
+ * 支持两种修改方式：按行号替换（替换和删除须附带当前内容用于校验），以及统一 diff 格式的补丁块（按上下文校验，
+ * 行号偏移时在附近查找匹配位置）。所有修改先全部定位和校验，任何一处不一致都不会写入。
+ * </p>
+ * <p>
+ * 写入时未修改的区间通过 {@link FileChannel#transferTo} 直接从原文件拷贝到临时文件，只编码修改的行，
+ * 再经 {@link AtomicFileWriter#rewrite} 原子替换。行定位使用 {@link LineIndexCache} 的行偏移索引。
+ * </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FileEditTool extends FileOperationTool {
+
+    // 补丁块按上下文查找匹配位置时，向前后搜索的最大行数
+    private static final int MAX_FUZZ_LINES = 100;
+
+    // 校验失败时展示的当前内容最大字符数
+    private static final int MAX_CONFLICT_CHARS = 2000;
+
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@.*");
+
+    private final FileToolProperties properties;
+    private final LineIndexCache lineIndexCache;
+    private final AtomicFileWriter atomicFileWriter;
+
+    /**
+     * 按行号替换。
+     *
+     * @param startLine 起始行号（从 1 开始）
+     * @param endLine   结束行号（含）；等于 startLine - 1 时表示在 startLine 之前插入
+     * @param newText   替换后的内容，为空表示删除这些行
+     * @param expected  被替换行的当前内容，替换或删除时必填，必须与文件一致
+     */
+    public record LineEdit(
+            @ToolParam(description = "起始行号（从1开始）") Integer startLine,
+            @ToolParam(description = "结束行号（含）；等于起始行号减1时表示在起始行之前插入") Integer endLine,
+            @ToolParam(description = "替换后的内容，为空表示删除这些行", required = false) String newText,
+            @ToolParam(description = "被替换行的当前内容，替换或删除时必填，会先校验与文件一致；插入时不填", required = false) String expected) {
+    }
+
+    @ToolAccess(value = ToolAccess.Mode.MUTATING, paths = "filePath")
+    @Tool(name = "edit_file", description = "局部修改文本文件（默认UTF-8编码），无需读出并重写整个文件。"
+            + "可按行号替换/插入/删除（edits，替换和删除须提供 expected 当前内容），或应用统一 diff 格式的补丁（patch，按上下文校验）")
+    public String editFile(
+            @ToolParam(description = "文件完整路径") String filePath,
+            @ToolParam(description = "按行号修改的列表", required = false) List<LineEdit> edits,
+            @ToolParam(description = "统一 diff 格式的补丁，包含一个或多个 @@ -a,b +c,d @@ 块", required = false) String patch,
+            @ToolParam(description = "文件编码（如UTF-8、GBK，默认UTF-8）", required = false) String encoding) {
+
+        logCall("edit_file", filePath, edits == null ? 0 : edits.size(), patch == null ? 0 : patch.length(), encoding);
+
+        // 1. 参数校验
+        if (filePath == null || filePath.trim().isEmpty()) {
+            return "编辑失败：文件路径不能为空";
+        }
+        if ((edits == null || edits.isEmpty()) && (patch == null || patch.isBlank())) {
+            return "编辑失败：修改列表和补丁不能同时为空";
+        }
+        Charset charset = StandardCharsets.UTF_8;
+        if (encoding != null && !encoding.trim().isEmpty()) {
+            try {
+                charset = Charset.forName(encoding.trim());
+            } catch (IllegalArgumentException e) {
+                return "编辑失败：不支持的编码格式 '" + encoding + "'";
+            }
+        }
+        if (!MappedTextReader.supportsLineScan(charset)) {
+            return "编辑失败：编码 " + charset.name() + " 不支持按行编辑";
+        }
+
+        // 2. 解析修改
+        List<Change> changes = new ArrayList<>();
+        if (edits != null) {
+            for (int i = 0; i < edits.size(); i++) {
+                String error = parseLineEdit(edits.get(i), i + 1, changes);
+                if (error != null) {
+                    return "编辑失败：" + error;
+                }
+            }
+        }
+        if (patch != null && !patch.isBlank()) {
+            String error = parsePatch(patch, changes);
+            if (error != null) {
+                return "编辑失败：" + error;
+            }
+        }
+
+        try {
+            // 3. 路径规范化与安全校验
+            Path path = normalizeAndSecure(filePath.trim());
+            if (!Files.exists(path)) {
+                return "编辑失败：文件不存在";
+            }
+            if (!Files.isRegularFile(path)) {
+                return "编辑失败：路径不是文件";
+            }
+            if (!Files.isReadable(path) || !Files.isWritable(path)) {
+                return "编辑失败：没有读写权限";
+            }
+
+            // 4. 定位并校验全部修改，再流式改写
+            Charset cs = charset;
+            List<String> notes = new ArrayList<>();
+            long[] sizes = new long[1];
+            AtomicFileWriter.Result result = atomicFileWriter.rewrite(path, out -> {
+                try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+                    sizes[0] = source.size();
+                    List<Located> located = new ArrayList<>(changes.size());
+                    String conflict = locate(path, source, cs, changes, located, notes);
+                    if (conflict != null) {
+                        // 放弃本次改写，原文件保持不变
+                        throw new EditConflictException(conflict);
+                    }
+                    splice(source, out, cs, located);
+                }
+            });
+
+            StringBuilder message = new StringBuilder("文件编辑成功！\n路径：").append(path)
+                    .append("\n修改：").append(changes.size()).append(" 处");
+            for (String note : notes) {
+                message.append("\n注意：").append(note);
+            }
+            return message.append(String.format("\n大小：%d → %d 字节", sizes[0], result.size())).toString();
+
+        } catch (EditConflictException e) {
+            return "编辑失败：" + e.getMessage();
+        } catch (CharacterCodingException e) {
+            return "编辑失败：内容包含编码 " + charset.name() + " 无法表示的字符";
+        } catch (Exception e) {
+            return handleException(e, "编辑文件");
+        }
+    }
+
+    // ========== 解析 ==========
+
+    /**
+     * 一处待应用的修改。
+     *
+     * @param index     修改序号（从 1 开始），用于提示
+     * @param startLine 起始行号
+     * @param oldLines  被替换的行；为 null 时不校验，替换 {@code lineCount} 行
+     * @param lineCount 被替换的行数
+     * @param newLines  替换后的行
+     * @param fuzzy     上下文不匹配时是否在附近查找
+     */
+    record Change(int index, long startLine, List<String> oldLines, long lineCount,
+                          List<String> newLines, boolean fuzzy) {
+    }
+
+    private static String parseLineEdit(LineEdit edit, int index, List<Change> changes) {
+        if (edit == null || edit.startLine() == null || edit.endLine() == null) {
+            return "第 " + index + " 处修改缺少起止行号";
+        }
+        if (edit.startLine() < 1 || edit.endLine() < edit.startLine() - 1) {
+            return "第 " + index + " 处修改的行号范围无效";
+        }
+        long count = edit.endLine() - edit.startLine() + 1L;
+        List<String> oldLines = null;
+        if (edit.expected() != null) {
+            oldLines = splitLines(edit.expected());
+            if (oldLines.size() != count) {
+                return String.format("第 %d 处修改的当前内容有 %d 行，与行号范围的 %d 行不一致", index, oldLines.size(), count);
+            }
+        } else if (count > 0) {
+            // 替换和删除必须校验当前内容，避免行号过时时改错位置
+            return String.format("第 %d 处修改替换或删除了第 %d-%d 行，必须填写 expected（这些行的当前内容）用于校验",
+                    index, edit.startLine(), edit.endLine());
+        }
+        changes.add(new Change(index, edit.startLine(), oldLines, count, splitLines(edit.newText()), false));
+        return null;
+    }
+
+    /**
+     * 解析统一 diff：忽略文件头，每个 {@code @@} 块转为一处修改，上下文行与删除行作为校验内容。
+     * <p>
+     * 块内容严格按块头声明的行数读取，不根据内容猜测块的结束位置：删除以 {@code -- } 开头的行（SQL、Lua 注释等）时，
+     * 补丁行恰好以 {@code --- } 开头，与文件头无法区分。行数与块头不一致时拒绝整个补丁。
+     * </p>
+     */
+    static String parsePatch(String patch, List<Change> changes) {
+        String[] lines = patch.replace("\r\n", "\n").split("\n", -1);
+        int i = 0;
+        int hunks = 0;
+        while (i < lines.length) {
+            Matcher header = HUNK_HEADER.matcher(lines[i++]);
+            if (!header.matches()) {
+                continue;
+            }
+            hunks++;
+            long oldStart = Long.parseLong(header.group(1));
+            long oldCount = header.group(2) == null ? 1 : Long.parseLong(header.group(2));
+            long newCount = header.group(4) == null ? 1 : Long.parseLong(header.group(4));
+            if (oldCount == 0 && newCount == 0) {
+                return "第 " + hunks + " 个补丁块为空";
+            }
+            List<String> oldLines = new ArrayList<>();
+            List<String> newLines = new ArrayList<>();
+            while (oldLines.size() < oldCount || newLines.size() < newCount) {
+                // 补丁以换行符结尾时，拆分出的最后一个空串不是内容行
+                if (i >= lines.length || (i == lines.length - 1 && lines[i].isEmpty())) {
+                    return String.format("第 %d 个补丁块不完整：块头声明原文 %d 行、新内容 %d 行，实际只有 %d 行、%d 行",
+                            hunks, oldCount, newCount, oldLines.size(), newLines.size());
+                }
+                String line = lines[i++];
+                if (line.startsWith("\\")) {
+                    // "\ No newline at end of file" 等标记行
+                    continue;
+                }
+                // 部分模型输出的空上下文行缺少前导空格
+                char type = line.isEmpty() ? ' ' : line.charAt(0);
+                String text = line.isEmpty() ? "" : line.substring(1);
+                boolean onOld = type == ' ' || type == '-';
+                boolean onNew = type == ' ' || type == '+';
+                if (!onOld && !onNew) {
+                    return String.format("第 %d 个补丁块包含无法识别的行：%s", hunks, truncate(line));
+                }
+                if ((onOld && oldLines.size() >= oldCount) || (onNew && newLines.size() >= newCount)) {
+                    return String.format("第 %d 个补丁块的内容行数与块头声明的原文 %d 行、新内容 %d 行不一致",
+                            hunks, oldCount, newCount);
+                }
+                if (onOld) {
+                    oldLines.add(text);
+                }
+                if (onNew) {
+                    newLines.add(text);
+                }
+            }
+            // 纯插入块的起始行号指向插入位置之前的一行
+            long startLine = oldCount == 0 ? oldStart + 1 : oldStart;
+            if (startLine < 1) {
+                return "第 " + hunks + " 个补丁块的行号无效";
+            }
+            changes.add(new Change(changes.size() + 1, startLine, oldLines, oldLines.size(), newLines, true));
+
+            // 块内容之后只能是下一个块头或文件头，多出的内容行说明块头声明的行数有误
+            while (i < lines.length && lines[i].startsWith("\\")) {
+                i++;
+            }
+            if (i < lines.length && isContentLine(lines, i)) {
+                return String.format("第 %d 个补丁块的内容行数多于块头声明的原文 %d 行、新内容 %d 行",
+                        hunks, oldCount, newCount);
+            }
+        }
+        return hunks == 0 ? "补丁中没有找到 @@ -a,b +c,d @@ 格式的补丁块" : null;
+    }
+
+    /**
+     * 第 {@code i} 行是否为块内容行；后面紧跟 {@code +++ } 的 {@code --- } 行是文件头。
+     */
+    private static boolean isContentLine(String[] lines, int i) {
+        String line = lines[i];
+        if (line.startsWith("--- ")) {
+            return i + 1 >= lines.length || !lines[i + 1].startsWith("+++ ");
+        }
+        return line.startsWith(" ") || line.startsWith("+") || line.startsWith("-");
+    }
+
+    private static List<String> splitLines(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String normalized = text.replace("\r\n", "\n");
+        if (normalized.endsWith("\n")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return Arrays.asList(normalized.split("\n", -1));
+    }
+
+    // ========== 定位与校验 ==========
+
+    /**
+     * 定位到字节区间的一处修改。
+     */
+    record Located(Change change, long startLine, long start, long end) {
+    }
+
+    /**
+     * 将全部修改定位到字节区间并校验上下文。
+     *
+     * @return 校验失败的说明；全部通过时返回 null
+     */
+    private String locate(Path path, FileChannel source, Charset charset, List<Change> changes,
+                          List<Located> located, List<String> notes) throws IOException {
+        LineIndex index = lineIndexCache.get(path, source);
+        int window = (int) Math.min(Math.max(properties.getRead().getMapWindow().toBytes(), 4096), Integer.MAX_VALUE);
+        long total = index.lineCount();
+
+        for (Change change : changes) {
+            long startLine = change.startLine();
+            if (startLine > total + 1 || startLine + change.lineCount() - 1 > total) {
+                return String.format("第 %d 处修改的行号范围（第 %d-%d 行）超出文件总行数 %d",
+                        change.index(), startLine, startLine + change.lineCount() - 1, total);
+            }
+            if (change.oldLines() != null) {
+                long found = change.fuzzy()
+                        ? findContext(source, index, charset, change, total, window)
+                        : (matches(readLines(source, index, charset, startLine, change.lineCount(), window),
+                        change.oldLines()) ? startLine : -1);
+                if (found < 0) {
+                    List<String> actual = readLines(source, index, charset, startLine,
+                            Math.max(change.lineCount(), 1), window);
+                    return String.format("第 %d 处修改的上下文与文件内容不一致，第 %d 行起的当前内容为：\n%s",
+                            change.index(), startLine, truncate(String.join("\n", actual)));
+                }
+                if (found != startLine) {
+                    notes.add(String.format("第 %d 处修改在第 %d 行找到匹配的上下文（偏移 %+d 行）",
+                            change.index(), found, found - startLine));
+                    startLine = found;
+                }
+            }
+            long start = offsetOf(source, index, startLine, window);
+            long end = offsetOf(source, index, startLine + change.lineCount(), window);
+            if (!isLineStart(source, start)) {
+                // 只有未校验内容的插入会走到这里：偏移不在行首说明索引与文件不一致，不能写入
+                return String.format("第 %d 处修改无法定位到第 %d 行的行首，文件可能正在被修改，请重试", change.index(), startLine);
+            }
+            located.add(new Located(change, startLine, start, end));
+        }
+
+        located.sort(Comparator.comparingLong(Located::start).thenComparingInt(l -> l.change().index()));
+        for (int i = 1; i < located.size(); i++) {
+            Located previous = located.get(i - 1);
+            Located current = located.get(i);
+            if (current.start() < previous.end()) {
+                return String.format("第 %d 处与第 %d 处修改的行号范围重叠", previous.change().index(), current.change().index());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 以声明的行号为中心，向前后交替查找与补丁上下文一致的位置。
+     *
+     * @return 匹配的起始行号，找不到时返回 -1
+     */
+    private static long findContext(FileChannel source, LineIndex index, Charset charset, Change change,
+                                    long total, int window) throws IOException {
+        int count = change.oldLines().size();
+        long from = Math.max(1, change.startLine() - MAX_FUZZ_LINES);
+        long to = Math.min(total + 1, change.startLine() + MAX_FUZZ_LINES + count);
+        List<String> region = readLines(source, index, charset, from, to - from, window);
+        for (int delta = 0; delta <= MAX_FUZZ_LINES; delta++) {
+            for (long candidate : delta == 0
+                    ? new long[]{change.startLine()}
+                    : new long[]{change.startLine() - delta, change.startLine() + delta}) {
+                int offset = (int) (candidate - from);
+                if (candidate >= 1 && offset >= 0 && offset + count <= region.size()
+                        && matches(region.subList(offset, offset + count), change.oldLines())) {
+                    return candidate;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 逐行比较，行尾空白不同视为一致。
+     */
+    private static boolean matches(List<String> actual, List<String> expected) {
+        if (actual.size() != expected.size()) {
+            return false;
+        }
+        for (int i = 0; i < actual.size(); i++) {
+            if (!actual.get(i).stripTrailing().equals(expected.get(i).stripTrailing())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取从 {@code startLine} 起的 {@code count} 行，超出文件末尾的部分不返回。
+     */
+    private static List<String> readLines(FileChannel source, LineIndex index, Charset charset,
+                                          long startLine, long count, int window) throws IOException {
+        if (count <= 0 || startLine > index.lineCount()) {
+            return List.of();
+        }
+        long start = offsetOf(source, index, startLine, window);
+        long end = offsetOf(source, index, startLine + count, window);
+        String text = MappedTextReader.decode(source, charset, start, end, (int) Math.min(end - start, Integer.MAX_VALUE),
+                window).text();
+        List<String> lines = new ArrayList<>(splitLines(text));
+        lines.replaceAll(line -> line.endsWith("\r") ? line.substring(0, line.length() - 1) : line);
+        return lines;
+    }
+
+    /**
+     * {@code offset} 是否位于行首：文件开头、文件末尾或紧跟换行符之后。
+     */
+    private static boolean isLineStart(FileChannel source, long offset) throws IOException {
+        long size = source.size();
+        if (offset == 0 || offset == size) {
+            return true;
+        }
+        if (offset > size) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        source.read(buffer, offset - 1);
+        return buffer.get(0) == '\n';
+    }
+
+    /**
+     * 第 {@code line} 行的起始偏移；超过总行数时为文件末尾。
+     */
+    private static long offsetOf(FileChannel source, LineIndex index, long line, int window) throws IOException {
+        long offset = index.lineOffset(source, line, window);
+        return offset < 0 ? index.size() : offset;
+    }
+
+    // ========== 写入 ==========
+
+    /**
+     * 按修改顺序拼接新文件：未修改区间直接从原文件拷贝，修改处写入新行。
+     */
+    static void splice(FileChannel source, FileChannel out, Charset charset, List<Located> located)
+            throws IOException {
+        long size = source.size();
+        String separator = detectLineSeparator(source);
+        boolean endsWithNewline = size == 0 || lastByte(source, size) == '\n';
+
+        long position = 0;
+        for (Located edit : located) {
+            List<String> newLines = edit.change().newLines();
+            long copyEnd = edit.start();
+            // 删除到没有换行符结尾的文件末尾时，一并去掉前一行的换行符，保持结尾无换行符
+            if (newLines.isEmpty() && edit.end() == size && !endsWithNewline
+                    && edit.start() > position && edit.start() < size) {
+                copyEnd -= lineBreakBefore(source, edit.start());
+            }
+            transfer(source, position, copyEnd - position, out);
+            position = edit.end();
+
+            if (newLines.isEmpty()) {
+                continue;
+            }
+            StringBuilder text = new StringBuilder();
+            // 在没有换行符结尾的最后一行之后插入时，先补上换行符
+            if (edit.start() == size && size > 0 && !endsWithNewline) {
+                text.append(separator);
+            }
+            for (int i = 0; i < newLines.size(); i++) {
+                text.append(newLines.get(i));
+                boolean last = i == newLines.size() - 1;
+                // 修改到文件末尾且原文件没有结尾换行符时保持不加
+                if (!last || edit.end() < size || endsWithNewline) {
+                    text.append(separator);
+                }
+            }
+            ByteBuffer bytes = charset.newEncoder().encode(CharBuffer.wrap(text));
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+        }
+        transfer(source, position, size - position, out);
+    }
+
+    private static void transfer(FileChannel source, long position, long count, FileChannel out) throws IOException {
+        long done = 0;
+        while (done < count) {
+            long transferred = source.transferTo(position + done, count - done, out);
+            if (transferred <= 0) {
+                throw new IOException("拷贝文件内容中断");
+            }
+            done += transferred;
+        }
+    }
+
+    /**
+     * 按文件第一个换行符判断换行风格。
+     */
+    private static String detectLineSeparator(FileChannel source) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(source.size(), 64 * 1024));
+        source.read(buffer, 0);
+        for (int i = 0; i < buffer.position(); i++) {
+            if (buffer.get(i) == '\n') {
+                return i > 0 && buffer.get(i - 1) == '\r' ? "\r\n" : "\n";
+            }
+        }
+        return System.lineSeparator();
+    }
+
+    /**
+     * {@code offset} 之前换行符的字节数（{@code \r\n} 为 2）。
+     */
+    private static int lineBreakBefore(FileChannel source, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(2);
+        long from = Math.max(0, offset - 2);
+        source.read(buffer, from);
+        int length = (int) (offset - from);
+        if (buffer.get(length - 1) != '\n') {
+            return 0;
+        }
+        return length == 2 && buffer.get(0) == '\r' ? 2 : 1;
+    }
+
+    private static byte lastByte(FileChannel source, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        source.read(buffer, size - 1);
+        return buffer.get(0);
+    }
+
+    /**
+     * 修改与文件当前内容不一致。
+     */
+    private static class EditConflictException extends IOException {
+
+        EditConflictException(String message) {
+            super(message);
+        }
+    }
+
+    private static String truncate(String text) {
+        return text.length() <= MAX_CONFLICT_CHARS ? text : text.substring(0, MAX_CONFLICT_CHARS) + "\n...[已截断]";
+    }
+}
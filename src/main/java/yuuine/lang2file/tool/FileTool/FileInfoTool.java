@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Service;
+import yuuine.lang2file.tool.ToolAccess;
 
 import java.nio.file.*;
 import java.nio.file.attribute.*;
@@ -14,6 +15,7 @@ import java.util.Date;
 @Slf4j
 public class FileInfoTool extends FileOperationTool {
 
+    @ToolAccess(value = ToolAccess.Mode.READ_ONLY, paths = "pathStr")
     @Tool(name = "file_info", description = "获取文件或目录的详细信息")
     public String getFileInfo(
             @ToolParam(description = "文件或目录路径") String pathStr) {
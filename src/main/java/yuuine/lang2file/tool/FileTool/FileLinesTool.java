@@ -0,0 +1,249 @@
+package yuuine.lang2file.tool.FileTool;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Service;
+import yuuine.lang2file.config.FileToolProperties;
+import yuuine.lang2file.tool.ToolAccess;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 按行号读取大文件（如应用日志）。
+ * <p>
+ * 基于 {@link LineIndexCache} 维护的行偏移索引定位行，首次访问时并行扫描一遍文件建立索引，
+ * 之后的调用直接定位，文件追加写入时只扫描新增部分。单次输出同样受 {@code lang2file.file-tool.read.max-chars} 限制。
+ * </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FileLinesTool extends FileOperationTool {
+
+    private static final int DEFAULT_LINE_COUNT = 100;
+    private static final int DEFAULT_TAIL_LINES = 50;
+
+    private final FileToolProperties properties;
+    private final LineIndexCache lineIndexCache;
+
+    @ToolAccess(value = ToolAccess.Mode.READ_ONLY, paths = "filePath")
+    @Tool(name = "read_lines", description = "按行号读取文本文件的指定行（适用于大型日志文件，如读取第 1200000 行起的 200 行）")
+    public String readLines(
+            @ToolParam(description = "文件完整路径") String filePath,
+            @ToolParam(description = "起始行号（从1开始）") Long startLine,
+            @ToolParam(description = "读取的行数（默认100）", required = false) Integer lineCount,
+            @ToolParam(description = "文件编码（如UTF-8、GBK，默认UTF-8）", required = false) String encoding) {
+
+        logCall("read_lines", filePath, startLine, lineCount, encoding);
+
+        // 1. 参数校验
+        if (startLine == null || startLine < 1) {
+            return "读取失败：起始行号必须大于等于 1";
+        }
+        if (lineCount != null && lineCount < 1) {
+            return "读取失败：读取行数必须大于等于 1";
+        }
+        Charset charset = resolveCharset(encoding);
+        String error = validate(filePath, charset, encoding);
+        if (error != null) {
+            return error;
+        }
+
+        try {
+            Path path = normalizeAndSecure(filePath.trim());
+            String fileError = checkFile(path);
+            if (fileError != null) {
+                return fileError;
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                LineIndex index = lineIndexCache.get(path, channel);
+                long total = index.lineCount();
+                if (startLine > total) {
+                    return String.format("读取失败：起始行号 %d 超出文件总行数 %d", startLine, total);
+                }
+
+                // 2. 通过索引定位起止偏移
+                int window = window();
+                long endLine = Math.min(startLine + (lineCount == null ? DEFAULT_LINE_COUNT : lineCount) - 1, total);
+                long start = index.lineOffset(channel, startLine, window);
+                long end = endLine < total ? index.lineOffset(channel, endLine + 1, window) : index.size();
+
+                MappedTextReader.Chunk chunk = MappedTextReader.decode(channel, charset, start, end, maxChars(), window);
+                StringBuilder result = new StringBuilder(String.format("读取成功（文件共 %d 行，%d 字节），第 %d-%d 行：\n",
+                        total, index.size(), startLine, lastLine(startLine, chunk)));
+                result.append(chunk.text());
+
+                // 3. 超出单次输出上限时给出续读游标
+                if (chunk.end() < end) {
+                    ReadCursor next = new ReadCursor(chunk.end(), startLine + chunk.newlines(), index.size(),
+                            index.lastModified());
+                    appendNewline(result, chunk);
+                    result.append(String.format("...[已截断：超出单次输出上限，可使用 read_file 传入 cursor=\"%s\" 继续读取]",
+                            next.encode()));
+                }
+                return result.toString();
+            }
+        } catch (Exception e) {
+            return handleException(e, "按行读取文件");
+        }
+    }
+
+    @ToolAccess(value = ToolAccess.Mode.READ_ONLY, paths = "filePath")
+    @Tool(name = "tail_file", description = "读取文本文件最后若干行（类似 tail -n）；传入上次返回的游标时只返回之后新增的内容（类似 tail -f）")
+    public String tailFile(
+            @ToolParam(description = "文件完整路径") String filePath,
+            @ToolParam(description = "读取的行数（默认50）", required = false) Integer lines,
+            @ToolParam(description = "上一次 tail_file 返回的游标，传入时只读取新增内容", required = false) String cursor,
+            @ToolParam(description = "文件编码（如UTF-8、GBK，默认UTF-8）", required = false) String encoding) {
+
+        logCall("tail_file", filePath, lines, cursor, encoding);
+
+        // 1. 参数校验
+        if (lines != null && lines < 1) {
+            return "读取失败：读取行数必须大于等于 1";
+        }
+        Charset charset = resolveCharset(encoding);
+        String error = validate(filePath, charset, encoding);
+        if (error != null) {
+            return error;
+        }
+        ReadCursor follow = null;
+        if (cursor != null && !cursor.isBlank()) {
+            follow = ReadCursor.decode(cursor);
+            if (follow == null) {
+                return "读取失败：无效的游标";
+            }
+        }
+
+        try {
+            Path path = normalizeAndSecure(filePath.trim());
+            String fileError = checkFile(path);
+            if (fileError != null) {
+                return fileError;
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                LineIndex index = lineIndexCache.get(path, channel);
+                long size = index.size();
+                int window = window();
+                int maxChars = maxChars();
+                StringBuilder result = new StringBuilder();
+
+                // 2. 确定起始位置
+                long start;
+                if (follow != null && follow.offset() <= size) {
+                    // 跟踪模式：从上次结束处读取新增内容
+                    start = follow.offset();
+                    if (start == size) {
+                        return String.format("没有新增内容（文件共 %d 行，%d 字节）。继续跟踪请传入 cursor=\"%s\"",
+                                index.lineCount(), size, followCursor(index));
+                    }
+                } else {
+                    if (follow != null) {
+                        result.append("注意：文件已被截断或轮转，以下为当前文件的最后几行\n");
+                    }
+                    long total = index.lineCount();
+                    if (total == 0) {
+                        return "文件为空。继续跟踪请传入 cursor=\"" + followCursor(index) + "\"";
+                    }
+                    long firstLine = Math.max(1, total - (lines == null ? DEFAULT_TAIL_LINES : lines) + 1);
+                    start = index.lineOffset(channel, firstLine, window);
+                    if (size - start > maxChars) {
+                        // 超出单次输出上限时保留末尾部分，从完整的一行开始
+                        long from = size - maxChars;
+                        long lineStart = MappedTextReader.skipLines(channel, from, size, 1, window);
+                        start = lineStart > 0 && lineStart < size
+                                ? lineStart
+                                : MappedTextReader.alignToCharBoundary(channel, from, size, charset);
+                        result.append("注意：末尾内容超出单次输出上限，已省略较早的行\n");
+                    }
+                }
+
+                // 3. 读取并附带跟踪游标
+                MappedTextReader.Chunk chunk = MappedTextReader.decode(channel, charset, start, size, maxChars, window);
+                long firstLine = index.lineAt(channel, start, window);
+                result.append(String.format("文件共 %d 行（%d 字节），第 %d-%d 行：\n",
+                        index.lineCount(), size, firstLine, lastLine(firstLine, chunk)));
+                result.append(chunk.text());
+                appendNewline(result, chunk);
+                if (chunk.end() < size) {
+                    ReadCursor next = new ReadCursor(chunk.end(), -1, size, index.lastModified());
+                    result.append(String.format("...[新增内容超出单次输出上限，继续读取请传入 cursor=\"%s\"]", next.encode()));
+                } else {
+                    result.append(String.format("[继续跟踪新增内容请传入 cursor=\"%s\"]", followCursor(index)));
+                }
+                return result.toString();
+            }
+        } catch (Exception e) {
+            return handleException(e, "读取文件末尾");
+        }
+    }
+
+    private static String followCursor(LineIndex index) {
+        return new ReadCursor(index.size(), -1, index.size(), index.lastModified()).encode();
+    }
+
+    private static Charset resolveCharset(String encoding) {
+        if (encoding == null || encoding.trim().isEmpty()) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(encoding.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String validate(String filePath, Charset charset, String encoding) {
+        if (filePath == null || filePath.trim().isEmpty()) {
+            return "读取失败：文件路径不能为空";
+        }
+        if (charset == null) {
+            return "读取失败：不支持的编码格式 '" + encoding + "'";
+        }
+        if (!MappedTextReader.supportsLineScan(charset)) {
+            return "读取失败：编码 " + charset.name() + " 不支持按行读取";
+        }
+        return null;
+    }
+
+    private static String checkFile(Path path) {
+        if (!Files.exists(path)) {
+            return "读取失败：文件不存在";
+        }
+        if (!Files.isRegularFile(path)) {
+            return "读取失败：路径不是文件";
+        }
+        if (!Files.isReadable(path)) {
+            return "读取失败：没有读取权限";
+        }
+        return null;
+    }
+
+    private static long lastLine(long firstLine, MappedTextReader.Chunk chunk) {
+        long newlines = chunk.newlines();
+        return Math.max(firstLine, firstLine + newlines - (chunk.text().endsWith("\n") ? 1 : 0));
+    }
+
+    private static void appendNewline(StringBuilder result, MappedTextReader.Chunk chunk) {
+        if (!chunk.text().isEmpty() && !chunk.text().endsWith("\n")) {
+            result.append('\n');
+        }
+    }
+
+    private int maxChars() {
+        return Math.max(properties.getRead().getMaxChars(), 1);
+    }
+
+    private int window() {
+        return (int) Math.min(Math.max(properties.getRead().getMapWindow().toBytes(), 4096), Integer.MAX_VALUE);
+    }
+}
@@ -1,31 +1,59 @@
 package yuuine.lang2file.tool.FileTool;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Service;
+import yuuine.lang2file.config.FileToolProperties;
+import yuuine.lang2file.tool.ToolAccess;
 
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * 分页读取文本文件。
+ * <p>
+ * 支持按字节偏移或行号定位，每次调用最多输出 {@code lang2file.file-tool.read.max-chars} 个字符，
+ * 未读完时返回续读游标，模型可据此逐页读取任意大小的文件。文件通过内存映射按窗口读取，
+ * 单次调用的内存占用与文件大小无关。
+ * </p>
+ */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class FileReadTool extends FileOperationTool {
 
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private final FileToolProperties properties;
 
-    @Tool(name = "read_file", description = "读取文本文件内容（默认UTF-8编码，最大支持10MB）")
+    @ToolAccess(value = ToolAccess.Mode.READ_ONLY, paths = "filePath")
+    @Tool(name = "read_file", description = "读取文本文件内容（默认UTF-8编码）。大文件分页返回，未读完时附带游标，"
+            + "传入游标可继续读取下一页；也可按字节偏移或起始行号、行数读取指定区间")
     public String readFile(
             @ToolParam(description = "文件完整路径") String filePath,
-            @ToolParam(description = "文件编码（如UTF-8、GBK，默认UTF-8）") String encoding) {
+            @ToolParam(description = "文件编码（如UTF-8、GBK，默认UTF-8）", required = false) String encoding,
+            @ToolParam(description = "上一次读取返回的续读游标，传入时从上次结束处继续读取", required = false) String cursor,
+            @ToolParam(description = "起始行号（从1开始），与字节偏移二选一", required = false) Integer startLine,
+            @ToolParam(description = "读取的行数，不填则读取到单页字符上限为止", required = false) Integer lineCount,
+            @ToolParam(description = "起始字节偏移（从0开始），会自动对齐到完整字符", required = false) Long offset) {
 
-        logCall("read_file", filePath, encoding);
+        logCall("read_file", filePath, encoding, cursor, startLine, lineCount, offset);
 
         // 1. 参数校验
         if (filePath == null || filePath.trim().isEmpty()) {
             return "读取失败：文件路径不能为空";
         }
+        if (startLine != null && startLine < 1) {
+            return "读取失败：起始行号必须大于等于 1";
+        }
+        if (lineCount != null && lineCount < 1) {
+            return "读取失败：读取行数必须大于等于 1";
+        }
+        if (offset != null && offset < 0) {
+            return "读取失败：字节偏移不能为负数";
+        }
 
         // 2. 确定编码
         Charset charset = StandardCharsets.UTF_8;
@@ -36,6 +64,10 @@ public class FileReadTool extends FileOperationTool {
                 return "读取失败：不支持的编码格式 '" + encoding + "'";
             }
         }
+        boolean lineRange = (startLine != null && startLine > 1) || lineCount != null;
+        if (lineRange && !MappedTextReader.supportsLineScan(charset)) {
+            return "读取失败：编码 " + charset.name() + " 不支持按行读取，请使用字节偏移";
+        }
 
         try {
             // 3. 路径规范化与安全校验
@@ -56,18 +88,85 @@ public class FileReadTool extends FileOperationTool {
                 return "读取失败：没有读取权限";
             }
 
-            // 7. 检查文件大小
-            long size = Files.size(path);
-            if (size > MAX_FILE_SIZE) {
-                return String.format("读取失败：文件过大（%.2f MB > 10 MB）", size / (1024.0 * 1024.0));
+            // 7. 按区间读取
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return readRange(path, channel, charset, cursor, startLine, lineCount, offset);
             }
 
-            // 8. 读取内容
-            String content = Files.readString(path, charset);
-            return String.format("文件读取成功（%d 字符）：\n%s", content.length(), content);
-
         } catch (Exception e) {
             return handleException(e, "读取文件");
         }
     }
-}
\ No newline at end of file
+
+    private String readRange(Path path, FileChannel channel, Charset charset, String cursor,
+                             Integer startLine, Integer lineCount, Long offset) throws Exception {
+        FileToolProperties.Read config = properties.getRead();
+        int window = (int) Math.min(Math.max(config.getMapWindow().toBytes(), 4096), Integer.MAX_VALUE);
+        long size = channel.size();
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+        // 1. 确定起始位置：游标 > 起始行号 > 字节偏移 > 文件开头
+        long start;
+        long line;
+        if (cursor != null && !cursor.isBlank()) {
+            ReadCursor decoded = ReadCursor.decode(cursor);
+            if (decoded == null) {
+                return "读取失败：无效的续读游标";
+            }
+            if (!decoded.matches(size, lastModified)) {
+                return "读取失败：文件在上次读取后已被修改，游标已失效，请重新读取";
+            }
+            start = decoded.offset();
+            line = decoded.line();
+        } else if (startLine != null) {
+            start = MappedTextReader.skipLines(channel, 0, size, startLine - 1, window);
+            if (start < 0) {
+                return "读取失败：起始行号 " + startLine + " 超出文件总行数";
+            }
+            line = startLine;
+        } else if (offset != null) {
+            if (offset > size) {
+                return String.format("读取失败：字节偏移 %d 超出文件大小 %d", offset, size);
+            }
+            start = MappedTextReader.alignToCharBoundary(channel, offset, size, charset);
+            line = start == 0 ? 1 : -1;
+        } else {
+            start = 0;
+            line = 1;
+        }
+
+        // 2. 确定结束位置：指定行数时截止到对应换行符之后
+        long end = size;
+        if (lineCount != null) {
+            long lineEnd = MappedTextReader.skipLines(channel, start, size, lineCount, window);
+            end = lineEnd < 0 ? size : lineEnd;
+        }
+
+        // 3. 解码，输出字符数达到上限时提前结束
+        MappedTextReader.Chunk chunk = MappedTextReader.decode(channel, charset, start, end,
+                Math.max(config.getMaxChars(), 1), window);
+        if (chunk.text().isEmpty() && start >= size) {
+            return String.format("文件读取成功（文件共 %d 字节）：已到达文件末尾，没有更多内容", size);
+        }
+
+        // 4. 组装结果
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("文件读取成功（文件共 %d 字节，本次读取字节 %d-%d", size, chunk.start(), chunk.end()));
+        int newlines = chunk.newlines();
+        if (line > 0) {
+            long lastLine = line + newlines - (chunk.text().endsWith("\n") ? 1 : 0);
+            result.append(String.format("，第 %d-%d 行", line, Math.max(lastLine, line)));
+        }
+        result.append(String.format("，%d 字符）：\n", chunk.text().length())).append(chunk.text());
+
+        if (chunk.end() < size) {
+            ReadCursor next = new ReadCursor(chunk.end(), line > 0 ? line + newlines : -1, size, lastModified);
+            if (!chunk.text().endsWith("\n")) {
+                result.append('\n');
+            }
+            result.append(String.format("...[未读完：剩余 %d 字节，继续读取请传入 cursor=\"%s\"]",
+                    size - chunk.end(), next.encode()));
+        }
+        return result.toString();
+    }
+}
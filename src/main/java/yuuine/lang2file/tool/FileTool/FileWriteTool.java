@@ -1,18 +1,32 @@
 package yuuine.lang2file.tool.FileTool;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Service;
+import yuuine.lang2file.tool.ToolAccess;
 
+import java.nio.charset.CharacterCodingException;
 import java.nio.file.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * 写入文本文件。
+ * <p>
+ * 覆盖写入通过 {@link AtomicFileWriter} 经临时文件原子替换，内容未变化时跳过写入；追加写入直接写到文件末尾。
+ * 刷盘方式由 {@code lang2file.file-tool.write.durability} 配置。
+ * </p>
+ */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class FileWriteTool extends FileOperationTool {
 
+    private final AtomicFileWriter atomicFileWriter;
+
+    @ToolAccess(value = ToolAccess.Mode.MUTATING, paths = "filePath")
     @Tool(name = "write_file", description = "将内容写入文件（覆盖或追加，默认UTF-8编码）")
     public String writeFile(
             @ToolParam(description = "文件完整路径") String filePath,
@@ -59,22 +73,23 @@ public class FileWriteTool extends FileOperationTool {
             }
 
             // 6. 执行写入
-            if (isAppend) {
-                Files.writeString(path, content, charset,
-                        StandardOpenOption.CREATE,
-                        StandardOpenOption.APPEND);
-            } else {
-                Files.writeString(path, content, charset,
-                        StandardOpenOption.CREATE,
-                        StandardOpenOption.TRUNCATE_EXISTING);
+            if (Files.isDirectory(path)) {
+                return "写入失败：路径是目录";
             }
+            AtomicFileWriter.Result result = isAppend
+                    ? atomicFileWriter.append(path, content, charset)
+                    : atomicFileWriter.write(path, content, charset);
 
-            long size = Files.size(path);
+            if (!result.changed()) {
+                return String.format("文件内容未变化，已跳过写入。\n路径：%s\n大小：%d 字节", path, result.size());
+            }
             String action = isAppend ? "追加" : "写入";
-            return String.format("文件%s成功！\n路径：%s\n大小：%d 字节", action, path, size);
+            return String.format("文件%s成功！\n路径：%s\n大小：%d 字节", action, path, result.size());
 
+        } catch (CharacterCodingException e) {
+            return "写入失败：内容包含编码 " + charset.name() + " 无法表示的字符";
         } catch (Exception e) {
             return handleException(e, "写入文件");
         }
     }
-}
\ No newline at end of file
+}
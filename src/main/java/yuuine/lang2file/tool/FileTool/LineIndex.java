@@ -0,0 +1,279 @@
+package yuuine.lang2file.tool.FileTool;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+
+/**
+ * 文本文件的稀疏行偏移索引。
+ * <p>
+ * 索引记录一组检查点（行号 → 该行起始字节偏移），相邻检查点之间至多相隔 {@code stride} 行。
+ * 定位任意行时先二分查找最近的检查点，再从检查点向后扫描不超过 {@code stride} 行，
+ * 单次定位的开销与文件大小无关。
+ * </p>
+ * <p>
+ * 构建时将文件切分为若干块，在调用方提供的线程池上并行扫描，每块独立记录块内每 {@code stride} 个换行符的位置，
+ * 合并时再按各块的换行符数量换算为全局行号，整个文件只扫描一遍。文件追加写入后，
+ * 只需扫描新增部分即可扩展索引，见 {@link #extend(FileChannel, long, long, int, int, ExecutorService)}。
+ * </p>
+ */
+final class LineIndex {
+
+    private static final int MAGIC = 0x4C494458; // "LIDX"
+    private static final int VERSION = 1;
+
+    // 用于校验已索引部分未被改写的尾部字节数
+    private static final int CHECK_BYTES = 4096;
+
+    private final int stride;
+    private final long size;
+    private final long lastModified;
+    private final long newlines;
+    private final boolean endsWithNewline;
+    private final long checksum;
+
+    // 检查点：lines[i] 行（从 1 开始）起始于 offsets[i]，按行号递增
+    private final long[] lines;
+    private final long[] offsets;
+
+    private LineIndex(int stride, long size, long lastModified, long newlines, boolean endsWithNewline,
+                      long checksum, long[] lines, long[] offsets) {
+        this.stride = stride;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.newlines = newlines;
+        this.endsWithNewline = endsWithNewline;
+        this.checksum = checksum;
+        this.lines = lines;
+        this.offsets = offsets;
+    }
+
+    long size() {
+        return size;
+    }
+
+    long lastModified() {
+        return lastModified;
+    }
+
+    int checkpoints() {
+        return lines.length;
+    }
+
+    /**
+     * 文件总行数：最后一行没有换行符时也计为一行。
+     */
+    long lineCount() {
+        return size == 0 ? 0 : newlines + (endsWithNewline ? 0 : 1);
+    }
+
+    /**
+     * 返回第 {@code line} 行（从 1 开始）的起始偏移；超出总行数时返回 -1。
+     */
+    long lineOffset(FileChannel channel, long line, int window) throws IOException {
+        if (line < 1 || line > lineCount()) {
+            return -1;
+        }
+        int i = floor(lines, line);
+        return MappedTextReader.skipLines(channel, offsets[i], size, line - lines[i], window);
+    }
+
+    /**
+     * 返回字节偏移 {@code offset} 所在的行号（从 1 开始）。
+     */
+    long lineAt(FileChannel channel, long offset, int window) throws IOException {
+        int i = floor(offsets, offset);
+        return lines[i] + countNewlines(channel, offsets[i], Math.min(offset, size), window);
+    }
+
+    /**
+     * 全量构建索引。
+     *
+     * @param executor 扫描各块的线程池；扫描是阻塞的缺页 I/O，不应使用公共 ForkJoinPool
+     */
+    static LineIndex build(FileChannel channel, long size, long lastModified, int stride, int chunkSize,
+                           ExecutorService executor) throws IOException {
+        return scan(channel, 0, size, lastModified, stride, chunkSize, executor, 0, new long[]{1}, new long[]{0});
+    }
+
+    /**
+     * 文件只在末尾追加时扩展索引，仅扫描新增部分。
+     * 文件未增长（大小不变或被截断）、检查点间隔不同、已索引部分末尾的内容被改写时返回 null，需要全量重建。
+     */
+    LineIndex extend(FileChannel channel, long newSize, long newLastModified, int stride, int chunkSize,
+                     ExecutorService executor) throws IOException {
+        if (newSize <= size || stride != this.stride || checksum(channel, size) != checksum) {
+            return null;
+        }
+        return scan(channel, size, newSize, newLastModified, stride, chunkSize, executor, newlines, lines, offsets);
+    }
+
+    /**
+     * 并行扫描 {@code [from, to)}，结果追加到已有检查点之后。
+     */
+    private static LineIndex scan(FileChannel channel, long from, long to, long lastModified, int stride,
+                                  int chunkSize, ExecutorService executor, long baseNewlines, long[] baseLines,
+                                  long[] baseOffsets) throws IOException {
+        int chunks = (int) ((to - from + chunkSize - 1) / chunkSize);
+        List<Future<ChunkScan>> futures = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            long chunkFrom = from + (long) c * chunkSize;
+            long chunkTo = Math.min(to, chunkFrom + chunkSize);
+            futures.add(executor.submit(() -> scanChunk(channel, chunkFrom, chunkTo, stride)));
+        }
+        List<ChunkScan> scans = new ArrayList<>(chunks);
+        try {
+            for (Future<ChunkScan> future : futures) {
+                scans.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("构建行索引时线程被中断");
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("构建行索引失败", e.getCause());
+        }
+
+        int total = baseLines.length;
+        for (ChunkScan scan : scans) {
+            total += scan.count();
+        }
+        long[] lines = Arrays.copyOf(baseLines, total);
+        long[] offsets = Arrays.copyOf(baseOffsets, total);
+        int position = baseLines.length;
+        long newlines = baseNewlines;
+        for (ChunkScan scan : scans) {
+            for (int i = 0; i < scan.count(); i++) {
+                // 块内第 n 个换行符之后是全局第 newlines + n + 1 行
+                lines[position] = newlines + scan.newlineNumbers()[i] + 1;
+                offsets[position] = scan.lineStarts()[i];
+                position++;
+            }
+            newlines += scan.newlines();
+        }
+
+        boolean endsWithNewline = to > 0 && channel.map(FileChannel.MapMode.READ_ONLY, to - 1, 1).get(0) == '\n';
+        return new LineIndex(stride, to, lastModified, newlines, endsWithNewline, checksum(channel, to), lines, offsets);
+    }
+
+    private static ChunkScan scanChunk(FileChannel channel, long from, long to, int stride) throws IOException {
+        int length = (int) (to - from);
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        long[] newlineNumbers = new long[16];
+        long[] lineStarts = new long[16];
+        int count = 0;
+        long newlines = 0;
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(i) == '\n' && ++newlines % stride == 0) {
+                if (count == newlineNumbers.length) {
+                    newlineNumbers = Arrays.copyOf(newlineNumbers, count * 2);
+                    lineStarts = Arrays.copyOf(lineStarts, count * 2);
+                }
+                newlineNumbers[count] = newlines;
+                lineStarts[count] = from + i + 1;
+                count++;
+            }
+        }
+        return new ChunkScan(newlines, newlineNumbers, lineStarts, count);
+    }
+
+    /**
+     * 单个块的扫描结果：块内换行符总数，以及块内每 {@code stride} 个换行符的序号与其后一行的起始偏移。
+     */
+    private record ChunkScan(long newlines, long[] newlineNumbers, long[] lineStarts, int count) {
+    }
+
+    private static long countNewlines(FileChannel channel, long from, long to, int window) throws IOException {
+        long count = 0;
+        for (long position = from; position < to; ) {
+            int length = (int) Math.min(window, to - position);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(i) == '\n') {
+                    count++;
+                }
+            }
+            position += length;
+        }
+        return count;
+    }
+
+    /**
+     * 已索引部分末尾 {@value #CHECK_BYTES} 字节的校验和，用于判断文件是否只在末尾追加。
+     */
+    private static long checksum(FileChannel channel, long end) throws IOException {
+        if (end == 0) {
+            return 0;
+        }
+        long from = Math.max(0, end - CHECK_BYTES);
+        CRC32C crc = new CRC32C();
+        crc.update(channel.map(FileChannel.MapMode.READ_ONLY, from, end - from));
+        return crc.getValue();
+    }
+
+    /**
+     * 不大于 {@code key} 的最后一个元素的下标；第一个检查点总是 (1, 0)。
+     */
+    private static int floor(long[] sorted, long key) {
+        int i = Arrays.binarySearch(sorted, key);
+        return i >= 0 ? i : Math.max(-i - 2, 0);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(stride);
+        out.writeLong(size);
+        out.writeLong(lastModified);
+        out.writeLong(newlines);
+        out.writeBoolean(endsWithNewline);
+        out.writeLong(checksum);
+        out.writeInt(lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            out.writeLong(lines[i]);
+            out.writeLong(offsets[i]);
+        }
+    }
+
+    /**
+     * 读取持久化的索引。
+     *
+     * @return 格式或版本不匹配时返回 null
+     */
+    static LineIndex readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return null;
+        }
+        int stride = in.readInt();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        long newlines = in.readLong();
+        boolean endsWithNewline = in.readBoolean();
+        long checksum = in.readLong();
+        int count = in.readInt();
+        if (count < 1) {
+            return null;
+        }
+        long[] lines = new long[count];
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = in.readLong();
+            offsets[i] = in.readLong();
+        }
+        return new LineIndex(stride, size, lastModified, newlines, endsWithNewline, checksum, lines, offsets);
+    }
+}
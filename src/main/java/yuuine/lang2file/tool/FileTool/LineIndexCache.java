@@ -0,0 +1,199 @@
+package yuuine.lang2file.tool.FileTool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import yuuine.lang2file.config.FileToolProperties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 行偏移索引缓存。
+ * <p>
+ * 索引先在内存中按文件路径缓存（LRU），其次持久化到磁盘，进程重启后直接加载，不再重新扫描。
+ * 缓存以文件大小和修改时间为键：两者一致时直接使用；文件只在末尾追加时增量扩展；其余情况全量重建。
+ * 小于 {@code min-file-size} 的文件只在内存中缓存，不写索引文件。
+ * </p>
+ * <p>
+ * 索引文件默认写入 {@code cache-directory}，文件名取源文件绝对路径的摘要；开启 {@code sidecar} 时写在源文件旁边
+ * （{@code <文件名>.lidx}），所在目录不可写时回退到缓存目录。
+ * </p>
+ */
+@Slf4j
+@Component
+public class LineIndexCache implements AutoCloseable {
+
+    private static final String SUFFIX = ".lidx";
+
+    private final FileToolProperties.LineIndex config;
+
+    // 内存中的索引，按访问顺序淘汰
+    private final Map<Path, LineIndex> cache;
+
+    // 同一文件的构建串行执行，避免并发调用重复扫描；扫描期间阻塞的虚拟线程不占用载体线程
+    private final PathLocks locks = new PathLocks();
+
+    // 扫描线程池：扫描是阻塞的缺页 I/O，使用独立的有界平台线程池，不占用公共 ForkJoinPool
+    private final ExecutorService scanExecutor;
+
+    public LineIndexCache(FileToolProperties properties) {
+        this.config = properties.getLineIndex();
+        this.scanExecutor = Executors.newFixedThreadPool(Math.max(config.getScanThreads(), 1),
+                Thread.ofPlatform().name("line-index-scan-", 0).daemon(true).factory());
+        int capacity = Math.max(config.getCacheSize(), 1);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, LineIndex> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * 获取与文件当前内容一致的索引，必要时加载、扩展或重建。
+     *
+     * @param path    文件路径
+     * @param channel 已打开的文件通道
+     */
+    public LineIndex get(Path path, FileChannel channel) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        try (PathLocks.Handle ignored = locks.lock(key)) {
+            long size = channel.size();
+            long lastModified = Files.getLastModifiedTime(key).toMillis();
+
+            LineIndex index;
+            synchronized (cache) {
+                index = cache.get(key);
+            }
+            if (index == null && size >= config.getMinFileSize().toBytes()) {
+                index = load(key);
+            }
+            if (index != null && index.size() == size && index.lastModified() == lastModified) {
+                remember(key, index);
+                return index;
+            }
+
+            int stride = Math.max(config.getStride(), 1);
+            int chunkSize = (int) Math.min(Math.max(config.getScanChunk().toBytes(), 4096), Integer.MAX_VALUE);
+            long start = System.nanoTime();
+            LineIndex updated = index == null ? null : index.extend(channel, size, lastModified, stride, chunkSize, scanExecutor);
+            boolean extended = updated != null;
+            if (updated == null) {
+                updated = LineIndex.build(channel, size, lastModified, stride, chunkSize, scanExecutor);
+            }
+            log.info("{}行索引：{}，{} 字节，{} 行，{} 个检查点，耗时 {} ms", extended ? "扩展" : "构建", key, size,
+                    updated.lineCount(), updated.checkpoints(), (System.nanoTime() - start) / 1_000_000);
+
+            remember(key, updated);
+            if (size >= config.getMinFileSize().toBytes()) {
+                store(key, updated);
+            }
+            return updated;
+        }
+    }
+
+    /**
+     * 丢弃文件的索引（内存与磁盘），用于文件被整体替换之后。
+     * <p>
+     * 替换后的文件可能与旧文件大小相同、修改时间落在同一毫秒内，仅凭两者无法识别，必须显式失效。
+     * </p>
+     */
+    public void invalidate(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        // 等待进行中的构建完成，避免其随后缓存基于旧文件的索引
+        try (PathLocks.Handle ignored = locks.lock(key)) {
+            synchronized (cache) {
+                cache.remove(key);
+            }
+            for (Path candidate : candidates(key)) {
+                try {
+                    Files.deleteIfExists(candidate);
+                } catch (IOException e) {
+                    log.debug("删除行索引失败：{}", candidate, e);
+                }
+            }
+        }
+    }
+
+    private void remember(Path key, LineIndex index) {
+        synchronized (cache) {
+            cache.put(key, index);
+        }
+    }
+
+    private LineIndex load(Path file) {
+        for (Path candidate : candidates(file)) {
+            if (!Files.isRegularFile(candidate)) {
+                continue;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(candidate)))) {
+                LineIndex index = LineIndex.readFrom(in);
+                if (index != null) {
+                    return index;
+                }
+            } catch (IOException e) {
+                log.warn("读取行索引失败，将重新构建：{}", candidate, e);
+            }
+        }
+        return null;
+    }
+
+    private void store(Path file, LineIndex index) {
+        for (Path target : candidates(file)) {
+            try {
+                Files.createDirectories(target.getParent());
+                Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    index.writeTo(out);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            } catch (IOException e) {
+                log.debug("写入行索引失败：{}", target, e);
+            }
+        }
+        log.warn("行索引无法持久化，仅保留在内存中：{}", file);
+    }
+
+    /**
+     * 索引文件的候选位置，按优先级排列。
+     */
+    private Path[] candidates(Path file) {
+        Path cached = StringUtils.hasText(config.getCacheDirectory())
+                ? Paths.get(config.getCacheDirectory()).toAbsolutePath().resolve(digest(file) + SUFFIX)
+                : null;
+        Path sidecar = config.isSidecar() ? file.resolveSibling(file.getFileName() + SUFFIX) : null;
+        if (sidecar != null && cached != null) {
+            return new Path[]{sidecar, cached};
+        }
+        return sidecar != null ? new Path[]{sidecar} : cached != null ? new Path[]{cached} : new Path[0];
+    }
+
+    private static String digest(Path file) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(file.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scanExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,187 @@
+package yuuine.lang2file.tool.FileTool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 基于内存映射的文本区间读取。
+ * <p>
+ * 文件按固定大小的窗口依次映射，单次调用占用的内存只与窗口大小和输出字符数有关，与文件大小无关。
+ * 解码使用增量 {@link CharsetDecoder}：窗口末尾被截断的多字节字符留给下一个窗口继续解码，
+ * 输出字符数达到上限时以解码器实际消费的字节位置作为结束偏移，保证下一页从完整字符开始。
+ * </p>
+ * <p>
+ * 按行定位直接在字节上查找换行符，仅适用于 ASCII 兼容编码（UTF-8、GBK 等，多字节字符中不会出现 {@code 0x0A}），
+ * 见 {@link #supportsLineScan(Charset)}。
+ * </p>
+ */
+final class MappedTextReader {
+
+    private static final byte LF = '\n';
+
+    // 按行对齐偏移时最多向前回溯的字节数
+    private static final int MAX_ALIGN_BACKTRACK = 64 * 1024;
+
+    private MappedTextReader() {
+    }
+
+    /**
+     * 一段解码结果。
+     *
+     * @param text  解码出的文本
+     * @param start 起始字节偏移（含）
+     * @param end   结束字节偏移（不含），即下一页的起始偏移
+     */
+    record Chunk(String text, long start, long end) {
+
+        /**
+         * 文本中的换行符个数。
+         */
+        int newlines() {
+            int count = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 编码是否可以直接在字节上查找换行符。
+     */
+    static boolean supportsLineScan(Charset charset) {
+        return Arrays.equals("\n".getBytes(charset), new byte[]{LF})
+                && Arrays.equals("A".getBytes(charset), new byte[]{'A'});
+    }
+
+    /**
+     * 从 {@code start} 起跳过 {@code lines} 个换行符。
+     *
+     * @return 第 {@code lines} 个换行符之后的偏移；{@code limit} 之前的换行符不足时返回 -1
+     */
+    static long skipLines(FileChannel channel, long start, long limit, long lines, int window) throws IOException {
+        if (lines <= 0) {
+            return start;
+        }
+        long remaining = lines;
+        long position = start;
+        while (position < limit) {
+            int length = (int) Math.min(window, limit - position);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(i) == LF && --remaining == 0) {
+                    return position + i + 1;
+                }
+            }
+            position += length;
+        }
+        return -1;
+    }
+
+    /**
+     * 将任意字节偏移调整到不早于它的第一个字符边界。
+     * <p>
+     * UTF-8 直接跳过续字节；其他多字节编码回溯到上一个换行符，从行首逐字符解码到目标位置；
+     * 单字节编码与无法按行定位的编码原样返回。
+     * </p>
+     */
+    static long alignToCharBoundary(FileChannel channel, long offset, long size, Charset charset) throws IOException {
+        if (offset <= 0 || offset >= size) {
+            return offset;
+        }
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            int length = (int) Math.min(4, size - offset);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            int skip = 0;
+            while (skip < length && (buffer.get(skip) & 0xC0) == 0x80) {
+                skip++;
+            }
+            return offset + skip;
+        }
+        if (charset.newEncoder().maxBytesPerChar() <= 1 || !supportsLineScan(charset)) {
+            return offset;
+        }
+
+        long from = Math.max(0, offset - MAX_ALIGN_BACKTRACK);
+        ByteBuffer before = channel.map(FileChannel.MapMode.READ_ONLY, from, offset - from);
+        long lineStart = -1;
+        for (int i = before.limit() - 1; i >= 0; i--) {
+            if (before.get(i) == LF) {
+                lineStart = from + i + 1;
+                break;
+            }
+        }
+        if (lineStart < 0) {
+            if (from > 0) {
+                // 行过长，无法确定字符边界
+                return offset;
+            }
+            lineStart = 0;
+        }
+
+        int length = (int) Math.min(offset - lineStart + charset.newEncoder().maxBytesPerChar(), size - lineStart);
+        ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, lineStart, length);
+        CharsetDecoder decoder = newDecoder(charset);
+        CharBuffer out = CharBuffer.allocate(2);
+        while (lineStart + in.position() < offset) {
+            // 每次只解码一个字符；代理对需要两个字符的空间
+            out.clear().limit(1);
+            CoderResult result = decoder.decode(in, out, true);
+            if (result.isOverflow() && out.position() == 0) {
+                out.limit(2);
+                result = decoder.decode(in, out, true);
+            }
+            if (result.isUnderflow() && out.position() == 0) {
+                break;
+            }
+        }
+        return lineStart + in.position();
+    }
+
+    /**
+     * 解码 {@code [start, end)} 区间，最多输出 {@code maxChars} 个字符。
+     */
+    static Chunk decode(FileChannel channel, Charset charset, long start, long end, int maxChars, int window)
+            throws IOException {
+        CharsetDecoder decoder = newDecoder(charset);
+        // 任何编码中一个字节至多解码为一个字符
+        CharBuffer out = CharBuffer.allocate((int) Math.min(maxChars, end - start));
+        long position = start;
+        while (position < end && out.hasRemaining()) {
+            int length = (int) Math.min(window, end - position);
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            boolean endOfInput = position + length >= end;
+            CoderResult result = decoder.decode(in, out, endOfInput);
+            position += in.position();
+            if (result.isOverflow()) {
+                break;
+            }
+            if (endOfInput) {
+                decoder.flush(out);
+                break;
+            }
+            if (in.position() == 0) {
+                // 窗口小于单个字符的字节数，避免死循环
+                break;
+            }
+        }
+        out.flip();
+        return new Chunk(out.toString(), start, position);
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+}
@@ -0,0 +1,49 @@
+package yuuine.lang2file.tool.FileTool;
+
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按文件路径加锁：同一路径的操作串行执行，不同路径互不影响。
+ * <p>
+ * 使用 {@link ReentrantLock} 而非 {@code synchronized}，虚拟线程在持锁期间阻塞于文件 I/O 或等待时不会占用载体线程。
+ * 锁按引用计数保留，最后一个持有者释放后即从表中移除，不会随访问过的路径数增长。
+ * </p>
+ */
+final class PathLocks {
+
+    private final ConcurrentHashMap<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        private final ReentrantLock lock = new ReentrantLock();
+        // 持有或等待该锁的线程数，只在 ConcurrentHashMap.compute 中修改
+        private int references;
+    }
+
+    /**
+     * 获取 {@code path} 的锁，必须在 finally 中调用 {@link Handle#close()} 释放。
+     */
+    Handle lock(Path path) {
+        Entry entry = entries.compute(path, (key, existing) -> {
+            Entry e = existing == null ? new Entry() : existing;
+            e.references++;
+            return e;
+        });
+        entry.lock.lock();
+        return () -> {
+            entry.lock.unlock();
+            entries.computeIfPresent(path, (key, e) -> --e.references == 0 ? null : e);
+        };
+    }
+
+    /**
+     * 已获取的锁，关闭即释放。
+     */
+    @FunctionalInterface
+    interface Handle extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
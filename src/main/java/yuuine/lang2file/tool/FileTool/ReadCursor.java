@@ -0,0 +1,57 @@
+package yuuine.lang2file.tool.FileTool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 分页读取的续读游标。
+ * <p>
+ * 对模型而言是不透明字符串，内部记录下一页的字节偏移、对应行号以及生成游标时文件的大小和修改时间，
+ * 文件在两次读取之间被修改时游标失效，避免从错位的偏移继续读取。
+ * </p>
+ *
+ * @param offset       下一页的起始字节偏移
+ * @param line         起始偏移所在行号（从 1 开始），未知时为 -1
+ * @param size         生成游标时的文件大小
+ * @param lastModified 生成游标时的文件修改时间（毫秒）
+ */
+record ReadCursor(long offset, long line, long size, long lastModified) {
+
+    private static final String VERSION = "c1";
+
+    /**
+     * 编码为 URL 安全的 Base64 字符串。
+     */
+    String encode() {
+        String raw = String.join(":", VERSION, Long.toString(offset), Long.toString(line),
+                Long.toString(size), Long.toString(lastModified));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 解析游标。
+     *
+     * @return 游标格式不正确时返回 null
+     */
+    static ReadCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":");
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                return null;
+            }
+            ReadCursor decoded = new ReadCursor(Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                    Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+            return decoded.offset() < 0 || decoded.offset() > decoded.size() ? null : decoded;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 游标是否仍对应当前文件内容。
+     */
+    boolean matches(long currentSize, long currentLastModified) {
+        return size == currentSize && lastModified == currentLastModified;
+    }
+}
@@ -0,0 +1,47 @@
+package yuuine.lang2file.tool;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明工具方法的访问方式，供同一轮中的多个工具调用并行调度时判断冲突。
+ * <p>
+ * 只读工具之间可以任意并行；修改型工具与访问相同路径（或其上下级路径）的其他调用按模型给出的顺序依次执行。
+ * 未标注该注解的工具视为修改型且路径未知，与同一轮中的所有调用串行执行。
+ * </p>
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ToolAccess {
+
+    /**
+     * 访问方式
+     */
+    Mode value();
+
+    /**
+     * 表示文件或目录路径的参数名，用于判断调用之间是否访问相同路径；为空表示不访问文件系统
+     */
+    String[] paths() default {};
+
+    /**
+     * 工具访问方式
+     */
+    enum Mode {
+        /**
+         * 只读，不修改任何状态
+         */
+        READ_ONLY,
+        /**
+         * 修改文件系统或其他外部状态
+         */
+        MUTATING
+    }
+}
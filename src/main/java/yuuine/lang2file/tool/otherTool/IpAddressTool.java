@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.stereotype.Service;
+import yuuine.lang2file.tool.ToolAccess;
 
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -57,6 +58,7 @@ public class IpAddressTool {
      *
      * @return 包含 IP 地址的友好消息，若获取失败则返回错误描述
      */
+    @ToolAccess(ToolAccess.Mode.READ_ONLY)
     @Tool(name = "get_current_ip_address", description = "获取当前服务器的公网IP地址")
     public String getCurrentIpAddress() {
         log.info("调用工具: get_current_ip_address");
@@ -74,6 +76,7 @@ public class IpAddressTool {
      *
      * @return 包含国家、地区、城市的友好消息，若获取失败则返回错误描述
      */
+    @ToolAccess(ToolAccess.Mode.READ_ONLY)
     @Tool(name = "get_ip_location", description = "获取当前服务器的地理位置信息（国家、地区、城市）")
     public String getIpLocation() {
         log.info("调用工具: get_ip_location");
@@ -91,6 +94,7 @@ public class IpAddressTool {
      *
      * @return 包含 ISP 和组织的友好消息，若获取失败则返回错误描述
      */
+    @ToolAccess(ToolAccess.Mode.READ_ONLY)
     @Tool(name = "get_ip_isp", description = "获取当前服务器的ISP（互联网服务提供商）和组织信息")
     public String getIpIsp() {
         log.info("调用工具: get_ip_isp");
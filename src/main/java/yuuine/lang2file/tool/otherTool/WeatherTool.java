@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.stereotype.Service;
+import yuuine.lang2file.tool.ToolAccess;
 
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -46,6 +47,7 @@ public class WeatherTool {
      * @param longitude 经度
      * @return 包含当前温度的友好消息，若获取失败则返回错误描述
      */
+    @ToolAccess(ToolAccess.Mode.READ_ONLY)
     @Tool(name = "get_current_temperature", description = "获取指定经纬度当前位置的实时温度")
     public String getCurrentTemperature(double latitude, double longitude) {
         log.info("调用工具: get_current_temperature, 纬度={}, 经度={}", latitude, longitude);
@@ -69,6 +71,7 @@ public class WeatherTool {
      * @param longitude 经度
      * @return 包含24小时温度列表的友好消息，若获取失败则返回错误描述
      */
+    @ToolAccess(ToolAccess.Mode.READ_ONLY)
     @Tool(name = "get_hourly_forecast", description = "获取指定经纬度未来24小时的逐小时温度预报")
     public String getHourlyForecast(double latitude, double longitude) {
         log.info("调用工具: get_hourly_forecast, 纬度={}, 经度={}", latitude, longitude);
@@ -103,6 +106,7 @@ public class WeatherTool {
      * @param longitude 经度
      * @return 包含概要信息的友好消息，若获取失败则返回错误描述
      */
+    @ToolAccess(ToolAccess.Mode.READ_ONLY)
     @Tool(name = "get_weather_summary", description = "获取指定经纬度的天气概要信息（位置、时区、海拔及未来24小时温度范围）")
     public String getWeatherSummary(double latitude, double longitude) {
         log.info("调用工具: get_weather_summary, 纬度={}, 经度={}", latitude, longitude);
@@ -0,0 +1,145 @@
+package yuuine.lang2file.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 带过期时间的 LRU 缓存。
+ * <p>
+ * 容量达到上限时淘汰最久未访问的条目，条目超过存活时间（TTL）后视为失效。
+ * 内部记录命中、未命中与淘汰次数，便于接入监控指标。
+ *
+ * <p>该类线程安全，所有读写操作在同一把锁内完成，适用于条目数量较小（数千以内）的场景。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author yuuine
+ * @version 1.0
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    /**
+     * @param maxSize 最大条目数
+     * @param ttl     条目存活时间
+     */
+    public ExpiringLruCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize 必须大于 0");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        // accessOrder = true，按访问顺序排列，实现 LRU
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringLruCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值，过期条目会被移除并计为未命中。
+     *
+     * @param key 键
+     * @return 缓存值，不存在或已过期时返回 null
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (System.nanoTime() - entry.createdAt() > ttlNanos) {
+            map.remove(key);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * 写入缓存值。
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public synchronized void put(K key, V value) {
+        map.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    /**
+     * 在未过期的条目中线性查找得分最高的值，命中的条目同时刷新 LRU 顺序。
+     * <p>
+     * 用于相似度匹配等无法按键精确查找的场景，不计入命中/未命中统计。
+     *
+     * @param scorer   条目值的评分函数
+     * @param minScore 最低得分，低于该值的条目不会被返回
+     * @return 得分最高的值，没有条目达到最低得分时返回 null
+     */
+    public synchronized V findBest(ToDoubleFunction<V> scorer, double minScore) {
+        long now = System.nanoTime();
+        K bestKey = null;
+        double bestScore = minScore;
+        for (Map.Entry<K, Entry<V>> e : map.entrySet()) {
+            if (now - e.getValue().createdAt() > ttlNanos) {
+                continue;
+            }
+            double score = scorer.applyAsDouble(e.getValue().value());
+            if (score >= bestScore) {
+                bestScore = score;
+                bestKey = e.getKey();
+            }
+        }
+        return bestKey == null ? null : map.get(bestKey).value();
+    }
+
+    /**
+     * 清空缓存（不影响统计计数）。
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 缓存条目。
+     *
+     * @param value     值
+     * @param createdAt 写入时间（纳秒）
+     */
+    private record Entry<V>(V value, long createdAt) {
+    }
+}
@@ -0,0 +1,73 @@
+package yuuine.lang2file.util;
+
+/**
+ * 路径通配符工具类。
+ * <p>
+ * 将 {@code /etc/app/**}{@code /*.yml} 这类通配路径拆分为不含通配符的基准目录与通配部分，
+ * 用于确定遍历起点以及判断工具调用访问的路径范围。
+ *
+ * <p>该类为工具类，不可实例化，所有方法均为静态方法。
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+public final class GlobUtil {
+
+    // 私有构造器，防止实例化
+    private GlobUtil() {
+    }
+
+    // glob 语法中的通配字符
+    private static final String GLOB_CHARS = "*?[{";
+
+    /**
+     * 判断路径中是否包含通配字符。
+     *
+     * @param path 路径
+     * @return 包含通配字符时返回 true
+     */
+    public static boolean hasGlob(String path) {
+        return indexOfGlob(path) >= 0;
+    }
+
+    /**
+     * 返回通配路径中第一个含通配字符的路径段之前的部分，即遍历的基准目录。
+     * <p>
+     * 例如 {@code /etc/app/*.yml} 返回 {@code /etc/app}，{@code *.txt} 返回空字符串（表示当前目录），
+     * 不含通配字符时原样返回。
+     *
+     * @param path 通配路径
+     * @return 基准目录
+     */
+    public static String baseDirectory(String path) {
+        int glob = indexOfGlob(path);
+        if (glob < 0) {
+            return path;
+        }
+        int separator = Math.max(path.lastIndexOf('/', glob), path.lastIndexOf('\\', glob));
+        if (separator < 0) {
+            return "";
+        }
+        // 根目录本身保留分隔符
+        return separator == 0 ? path.substring(0, 1) : path.substring(0, separator);
+    }
+
+    /**
+     * 通配路径是否可能匹配任意深度的子目录（含 {@code **}）。
+     *
+     * @param path 通配路径
+     * @return 含 {@code **} 时返回 true
+     */
+    public static boolean isRecursive(String path) {
+        return path.contains("**");
+    }
+
+    private static int indexOfGlob(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            if (GLOB_CHARS.indexOf(path.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -3,9 +3,11 @@ package yuuine.lang2file.util;
 import java.security.SecureRandom;
 
 /**
- * ID生成工具类，提供生成高随机性、全局唯一会话ID的方法。
- * 使用密码学安全的伪随机数生成器 {@link SecureRandom} 保证随机质量，
- * 生成的ID由大小写字母和数字组成，长度为32位，适合作为会话标识。
+ * ID生成工具类，提供生成按时间有序、全局唯一会话ID的方法。
+ * <p>
+ * 会话ID采用 ULID 格式：48 位毫秒时间戳 + 80 位随机数，使用 Crockford Base32 编码为 26 个字符。
+ * 随机部分一次性从 {@link SecureRandom} 读取 10 个字节，不再逐字符调用随机数生成器；
+ * 时间戳在前，ID 按生成时间排序，便于日志排查和按会话分片。
  *
  * <p>该类为工具类，不可实例化，所有方法均为静态方法。
  *
@@ -18,32 +20,70 @@ public final class IdUtil {
     private IdUtil() {
     }
 
-    // 字符集：26个大写字母 + 26个小写字母 + 10个数字，共62个字符
-    private static final String CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-    private static final char[] CHAR_ARRAY = CHARS.toCharArray();
-    private static final int CHARS_LENGTH = CHAR_ARRAY.length;
+    // Crockford Base32 字符集：去掉易混淆的 I、L、O、U
+    private static final char[] ENCODING = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
 
     // 密码学安全的随机数生成器（线程安全）
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
-    // 默认生成的会话ID长度
-    private static final int SESSION_ID_LENGTH = 32;
+    // 会话ID长度：时间戳 10 个字符 + 随机数 16 个字符
+    private static final int SESSION_ID_LENGTH = 26;
+    private static final int RANDOM_BYTES = 10;
+
+    // 客户端自带会话ID的最大长度
+    private static final int MAX_CLIENT_SESSION_ID_LENGTH = 64;
 
     /**
-     * 生成一个32位的会话ID。
-     * <p>
-     * 会话ID由大小写字母和数字组成，使用 {@link SecureRandom} 确保随机性和不可预测性。
-     * 长度为32位，理论上碰撞概率极低，适合作为全局唯一的会话标识。
+     * 生成一个26位、按时间有序的会话ID。
      *
-     * @return 一个32位的随机字符串
+     * @return 会话ID
      */
     public static String generateSessionId() {
-        StringBuilder sb = new StringBuilder(SESSION_ID_LENGTH);
-        for (int i = 0; i < SESSION_ID_LENGTH; i++) {
-            // 从字符集中随机选取一个字符
-            int index = SECURE_RANDOM.nextInt(CHARS_LENGTH);
-            sb.append(CHAR_ARRAY[index]);
+        byte[] random = new byte[RANDOM_BYTES];
+        SECURE_RANDOM.nextBytes(random);
+
+        char[] id = new char[SESSION_ID_LENGTH];
+        long time = System.currentTimeMillis();
+        // 时间戳：48 位，高位补 0 至 50 位，每 5 位一个字符
+        for (int i = 9; i >= 0; i--) {
+            id[i] = ENCODING[(int) (time & 0x1F)];
+            time >>>= 5;
+        }
+        // 随机数：80 位拆为两个 40 位整数，各编码为 8 个字符
+        encode40(random, 0, id, 10);
+        encode40(random, 5, id, 18);
+        return new String(id);
+    }
+
+    /**
+     * 校验客户端传入的会话ID：1 至 64 个字母、数字、{@code -} 或 {@code _}。
+     *
+     * @param sessionId 会话ID
+     * @return 格式合法时返回 true
+     */
+    public static boolean isValidSessionId(String sessionId) {
+        if (sessionId == null || sessionId.isEmpty() || sessionId.length() > MAX_CLIENT_SESSION_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < sessionId.length(); i++) {
+            char c = sessionId.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void encode40(byte[] bytes, int offset, char[] out, int outOffset) {
+        long value = 0;
+        for (int i = 0; i < 5; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        for (int i = 7; i >= 0; i--) {
+            out[outOffset + i] = ENCODING[(int) (value & 0x1F)];
+            value >>>= 5;
         }
-        return sb.toString();
     }
-}
\ No newline at end of file
+}
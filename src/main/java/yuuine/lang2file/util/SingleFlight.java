@@ -0,0 +1,142 @@
+package yuuine.lang2file.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 单飞（single-flight）请求合并。
+ * <p>
+ * 同一个键同一时刻只执行一次调用：第一个到达的调用方（leader）发起执行，
+ * 执行期间到达的相同键调用方（follower）等待并共享同一结果或异常，不再重复执行。
+ * 调用结束后立即移除，之后到达的请求会重新执行（结果缓存由调用方自行负责）。
+ * </p>
+ * <p>
+ * 调用在独立的虚拟线程上执行，所有调用方（包括 leader）只是等待者：某个调用方被中断（如推测执行被取消）时
+ * 只放弃自己的等待，不影响其他仍在等待的调用方；最后一个等待者离开时才中断执行线程，取消其中阻塞的请求。
+ * </p>
+ *
+ * <p>该类线程安全。内部记录 leader 与 follower 次数，便于接入监控指标。
+ *
+ * @param <K> 键类型
+ * @param <V> 结果类型
+ * @author yuuine
+ * @version 1.0
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+
+    /**
+     * 一次进行中的调用。{@code waiters} 只在 {@link ConcurrentHashMap#compute} 中修改。
+     */
+    private static final class Flight<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private Thread worker;
+        private int waiters = 1;
+        private volatile boolean abandoned;
+    }
+
+    /**
+     * 执行调用，相同键的并发调用合并为一次。
+     *
+     * @param key  键
+     * @param call 实际调用
+     * @return 调用结果（follower 得到与 leader 相同的结果）
+     */
+    public V execute(K key, Supplier<V> call) {
+        boolean[] created = new boolean[1];
+        Flight<V> flight = inFlight.compute(key, (k, existing) -> {
+            if (existing != null) {
+                existing.waiters++;
+                return existing;
+            }
+            Flight<V> started = new Flight<>();
+            started.worker = Thread.ofVirtual().name("single-flight").unstarted(() -> run(k, started, call));
+            created[0] = true;
+            return started;
+        });
+
+        if (created[0]) {
+            leaders.increment();
+            flight.worker.start();
+        } else {
+            followers.increment();
+        }
+        return await(key, flight);
+    }
+
+    private void run(K key, Flight<V> flight, Supplier<V> call) {
+        try {
+            if (flight.abandoned) {
+                flight.result.cancel(false);
+                return;
+            }
+            flight.result.complete(call.get());
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private V await(K key, Flight<V> flight) {
+        try {
+            return flight.result.get();
+        } catch (InterruptedException e) {
+            leave(key, flight);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待合并请求结果时线程被中断", e);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("合并请求已取消", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("合并请求执行失败", cause);
+        }
+    }
+
+    /**
+     * 等待者放弃等待；没有其他等待者时移除并中断执行线程。
+     */
+    private void leave(K key, Flight<V> flight) {
+        boolean[] last = new boolean[1];
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current != flight) {
+                return current;
+            }
+            if (--current.waiters > 0) {
+                return current;
+            }
+            last[0] = true;
+            return null;
+        });
+        if (last[0]) {
+            flight.abandoned = true;
+            flight.worker.interrupt();
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public long leaderCount() {
+        return leaders.sum();
+    }
+
+    public long followerCount() {
+        return followers.sum();
+    }
+}
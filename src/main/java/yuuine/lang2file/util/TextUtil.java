@@ -0,0 +1,135 @@
+package yuuine.lang2file.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文本处理工具类，提供输入归一化与中英文混合分词方法。
+ * <p>
+ * 英文及数字按单词切分并转为小写，中文（汉字）连续片段按二元组（bigram）切分，
+ * 单字成段时保留单字。其余字符（标点、空白、符号）均视为分隔符。
+ *
+ * <p>该类为工具类，不可实例化，所有方法均为静态方法。
+ *
+ * @author yuuine
+ * @version 1.0
+ */
+public final class TextUtil {
+
+    // 私有构造器，防止实例化
+    private TextUtil() {
+    }
+
+    // 中文虚词，作为汉字片段的分隔符，避免产生“的内”“把文”之类的噪声二元组
+    private static final String CJK_STOP_CHARS = "的了在是和与或及把将被请帮我你他她它这那个吗呢吧啊";
+
+    /**
+     * 归一化用户输入，用作缓存或去重的键。
+     * <p>
+     * 依次执行 NFKC 归一化（全角转半角）、大小写折叠，并将连续的空白与标点压缩为单个空格。
+     *
+     * @param text 原始文本
+     * @return 归一化后的文本，输入为 null 时返回空字符串
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String nfkc = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        StringBuilder sb = new StringBuilder(nfkc.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < nfkc.length(); ) {
+            int cp = nfkc.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isSeparator(cp)) {
+                pendingSpace = !sb.isEmpty();
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            sb.appendCodePoint(Character.toLowerCase(cp));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 对中英文混合文本进行分词。
+     * <p>
+     * 规则：
+     * 1. 连续的 ASCII 字母或数字组成一个单词（小写化），长度小于2的单词丢弃
+     * 2. 连续汉字按二元组切分，如“删除文件”切分为“删除”、“除文”、“文件”
+     * 3. 单个汉字成段时保留该字
+     * 4. 常见中文虚词（如“的”“把”）视为分隔符
+     *
+     * @param text 待分词文本
+     * @return 分词结果（保留重复词，便于统计词频）
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int wordStart = -1;
+        int hanStart = -1;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            boolean word = c < 128 && Character.isLetterOrDigit(c);
+            boolean han = !word && Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN
+                    && CJK_STOP_CHARS.indexOf(c) < 0;
+
+            if (!word && wordStart >= 0) {
+                if (i - wordStart >= 2) {
+                    tokens.add(text.substring(wordStart, i).toLowerCase());
+                }
+                wordStart = -1;
+            }
+            if (!han && hanStart >= 0) {
+                addBigrams(text, hanStart, i, tokens);
+                hanStart = -1;
+            }
+            if (word && wordStart < 0) {
+                wordStart = i;
+            }
+            if (han && hanStart < 0) {
+                hanStart = i;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 将 [start, end) 区间的汉字片段按二元组切分加入结果。
+     */
+    private static void addBigrams(String text, int start, int end, List<String> tokens) {
+        if (end - start == 1) {
+            tokens.add(text.substring(start, end));
+            return;
+        }
+        for (int i = start; i + 1 < end; i++) {
+            tokens.add(text.substring(i, i + 2));
+        }
+    }
+
+    /**
+     * 判断码点是否为空白或标点（作为分隔符处理）。
+     */
+    private static boolean isSeparator(int cp) {
+        if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+            return true;
+        }
+        return switch (Character.getType(cp)) {
+            case Character.CONNECTOR_PUNCTUATION,
+                 Character.DASH_PUNCTUATION,
+                 Character.START_PUNCTUATION,
+                 Character.END_PUNCTUATION,
+                 Character.INITIAL_QUOTE_PUNCTUATION,
+                 Character.FINAL_QUOTE_PUNCTUATION,
+                 Character.OTHER_PUNCTUATION -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,156 @@
+package yuuine.lang2file.agent.limiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.TransientAiException;
+import yuuine.lang2file.config.LimiterProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link AdaptiveConcurrencyLimiter} 的上限调整与排队截止时间。
+ * <p>
+ * 延迟由可控时钟给出，每轮同时持有与上限相同数量的许可，使每个样本都参与上限调整。
+ * </p>
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(1000);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void limitGrowsWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(properties(10));
+
+        for (int round = 0; round < 5; round++) {
+            saturate(limiter, FAST);
+        }
+
+        assertTrue(limiter.getLimit() > 10, "limit " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(properties(10));
+        saturate(limiter, FAST);
+        double baseline = limiter.getLimit();
+
+        // 延迟上升到基线的 10 倍，长期基线尚未跟上之前按比例收缩
+        saturate(limiter, SLOW);
+
+        assertTrue(limiter.getLimit() < baseline, "limit " + limiter.getLimit() + " after " + baseline);
+    }
+
+    @Test
+    void idleSamplesDoNotChangeLimit() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(properties(10));
+
+        for (int i = 0; i < 20; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+            clock.addAndGet(FAST);
+            permit.success();
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void overloadBacksOffAndOtherFailuresDoNot() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(properties(10));
+
+        limiter.acquire().failure(new IllegalArgumentException("bad request"));
+        assertEquals(10, limiter.getLimit());
+
+        limiter.acquire().overloaded();
+        assertEquals(9, limiter.getLimit(), 1e-9);
+
+        limiter.acquire().failure(new RuntimeException(new TransientAiException("429")));
+        assertEquals(8.1, limiter.getLimit(), 1e-9);
+
+        // 重复释放被忽略
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        permit.overloaded();
+        permit.overloaded();
+        assertEquals(7.29, limiter.getLimit(), 1e-9);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void queuedRequestIsRejectedAtDeadline() {
+        LimiterProperties properties = properties(1);
+        properties.setMaxLimit(1);
+        AdaptiveConcurrencyLimiter limiter = newLimiter(properties);
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+
+        long start = System.nanoTime();
+        assertThrows(ModelBusyException.class, () -> limiter.acquire(Duration.ofMillis(100)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, limiter.getWaiting());
+
+        held.success();
+        limiter.acquire(Duration.ZERO).ignore();
+    }
+
+    @Test
+    void fullQueueRejectsImmediatelyAndWaiterIsServedOnRelease() throws Exception {
+        LimiterProperties properties = properties(1);
+        properties.setMaxLimit(1);
+        properties.setQueueSize(1);
+        AdaptiveConcurrencyLimiter limiter = newLimiter(properties);
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiter =
+                CompletableFuture.supplyAsync(() -> limiter.acquire(Duration.ofSeconds(5)));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getWaiting() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, limiter.getWaiting());
+
+        long start = System.nanoTime();
+        assertThrows(ModelBusyException.class, () -> limiter.acquire(Duration.ofSeconds(5)));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertFalse(waiter.isDone());
+
+        held.success();
+        waiter.get(5, TimeUnit.SECONDS).success();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * 同时持有与当前上限相同数量的许可，再以相同延迟全部成功释放。
+     */
+    private void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        int limit = (int) limiter.getLimit();
+        for (int i = 0; i < limit; i++) {
+            permits.add(limiter.acquire(Duration.ZERO));
+        }
+        clock.addAndGet(rttNanos);
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::success);
+    }
+
+    private AdaptiveConcurrencyLimiter newLimiter(LimiterProperties properties) {
+        return new AdaptiveConcurrencyLimiter(properties, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private static LimiterProperties properties(int initialLimit) {
+        LimiterProperties properties = new LimiterProperties();
+        properties.setInitialLimit(initialLimit);
+        properties.setMinLimit(1);
+        return properties;
+    }
+}
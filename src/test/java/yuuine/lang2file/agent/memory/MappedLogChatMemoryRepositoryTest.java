@@ -0,0 +1,229 @@
+package yuuine.lang2file.agent.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.util.unit.DataSize;
+import yuuine.lang2file.config.MemoryProperties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * {@link MappedLogChatMemoryRepository} 的崩溃恢复、压缩与保留期清理。
+ * <p>
+ * 后台压缩间隔设为很长，由测试直接调用 {@code compact()}；损坏的记录通过直接修改段文件构造。
+ * </p>
+ */
+class MappedLogChatMemoryRepositoryTest {
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MemoryProperties properties = new MemoryProperties();
+    private MappedLogChatMemoryRepository repository;
+
+    @AfterEach
+    void close() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void tornTailRecordIsDroppedAndOverwrittenOnRecovery() throws IOException {
+        open(DataSize.ofKilobytes(4));
+        repository.append("c1", List.of(user("one"), assistant("two"), user("three")));
+        reopenAfter(() -> {
+            // 最后一条记录只写入了一半
+            List<Integer> offsets = recordOffsets(singleSegment());
+            int last = offsets.getLast();
+            byte[] bytes = Files.readAllBytes(singleSegment());
+            int length = ByteBuffer.wrap(bytes).getInt(last);
+            zero(singleSegment(), last + HEADER_SIZE + length / 2, last + HEADER_SIZE + length);
+        });
+
+        assertEquals(List.of("one", "two"), texts("c1"));
+
+        repository.append("c1", List.of(user("four")));
+        reopenAfter(() -> {
+        });
+        assertEquals(List.of("one", "two", "four"), texts("c1"));
+    }
+
+    @Test
+    void recordWithBadChecksumEndsTheSegment() throws IOException {
+        open(DataSize.ofKilobytes(4));
+        repository.append("c1", List.of(user("one"), assistant("two"), user("three")));
+        reopenAfter(() -> {
+            int second = recordOffsets(singleSegment()).get(1);
+            byte[] bytes = Files.readAllBytes(singleSegment());
+            int textEnd = second + HEADER_SIZE + ByteBuffer.wrap(bytes).getInt(second);
+            bytes[textEnd - 1] ^= 0x20;
+            Files.write(singleSegment(), bytes);
+        });
+
+        assertEquals(List.of("one"), texts("c1"));
+    }
+
+    @Test
+    void compactionRelocatesLiveConversationsAndReleasesOldSegments() throws IOException {
+        open(DataSize.ofBytes(512));
+        repository.append("kept", List.of(user("written once into the oldest segment")));
+        for (int round = 0; round < 6; round++) {
+            repository.saveAll("rewritten", List.of(
+                    user("question number " + round + " padded to a realistic length"),
+                    assistant("answer number " + round + " padded to a realistic length")));
+        }
+        repository.saveSummary("kept", "summary of kept");
+        long before = segmentFiles().size();
+        assertTrue(before > 2, "segments " + before);
+
+        repository.compact();
+
+        assertTrue(segmentFiles().size() < before, "segments " + segmentFiles().size() + " of " + before);
+        assertTrue(meterRegistry.get("lang2file.memory.log.compactions").counter().count() > 0);
+        assertNoDeletedMappings();
+        assertCompactedState();
+
+        reopenAfter(() -> {
+        });
+        assertCompactedState();
+    }
+
+    @Test
+    void conversationsPastRetentionAreDeletedDurably() throws Exception {
+        properties.getMappedLog().setRetention(Duration.ofMillis(200));
+        open(DataSize.ofKilobytes(4));
+        repository.append("old", List.of(user("stale")));
+        Thread.sleep(300);
+        repository.append("fresh", List.of(user("recent")));
+
+        repository.compact();
+
+        assertEquals(List.of("fresh"), repository.findConversationIds());
+        reopenAfter(() -> {
+        });
+        assertEquals(List.of("fresh"), repository.findConversationIds());
+        assertEquals(List.of(), repository.findByConversationId("old"));
+    }
+
+    @Test
+    void segmentMarkedAsDeletedIsRemovedAtStartupWithoutReplay() throws IOException {
+        open(DataSize.ofKilobytes(4));
+        repository.append("c1", List.of(user("one")));
+        Path segment = singleSegment();
+        reopenAfter(() -> Files.createFile(segment.resolveSibling(segment.getFileName() + ".deleted")));
+
+        assertEquals(List.of(), repository.findConversationIds());
+        assertFalse(Files.exists(segment));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.noneMatch(p -> p.getFileName().toString().endsWith(".deleted")));
+        }
+    }
+
+    private void assertCompactedState() {
+        assertEquals(List.of("written once into the oldest segment"), texts("kept"));
+        assertEquals("summary of kept", repository.findSummary("kept").orElseThrow());
+        assertEquals(List.of("question number 5 padded to a realistic length",
+                "answer number 5 padded to a realistic length"), texts("rewritten"));
+    }
+
+    /**
+     * 已删除的段不应仍被映射：未解除映射的文件在 /proc/self/maps 中显示为 (deleted)，磁盘空间不会释放。
+     */
+    private void assertNoDeletedMappings() throws IOException {
+        Path maps = Path.of("/proc/self/maps");
+        assumeTrue(Files.isReadable(maps), "需要 Linux 的 /proc/self/maps");
+        String directory = dir.toRealPath().toString();
+        try (Stream<String> lines = Files.lines(maps)) {
+            assertTrue(lines.noneMatch(line -> line.contains(directory) && line.endsWith("(deleted)")));
+        }
+    }
+
+    private void open(DataSize segmentSize) {
+        MemoryProperties.MappedLog config = properties.getMappedLog();
+        config.setDirectory(dir.toString());
+        config.setSegmentSize(segmentSize);
+        config.setCompactionInterval(Duration.ofHours(1));
+        repository = new MappedLogChatMemoryRepository(properties, meterRegistry);
+    }
+
+    /**
+     * 关闭存储，修改磁盘上的文件后重新打开。
+     */
+    private void reopenAfter(FileAction action) throws IOException {
+        repository.close();
+        action.run();
+        repository = new MappedLogChatMemoryRepository(properties, new SimpleMeterRegistry());
+    }
+
+    private List<String> texts(String conversationId) {
+        return repository.findByConversationId(conversationId).stream().map(Message::getText).toList();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private Path singleSegment() throws IOException {
+        List<Path> files = segmentFiles();
+        assertEquals(1, files.size());
+        return files.getFirst();
+    }
+
+    /**
+     * 按记录格式（长度为 0 表示结束）列出段内每条记录的起始偏移。
+     */
+    private static List<Integer> recordOffsets(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        List<Integer> offsets = new ArrayList<>();
+        int pos = 0;
+        while (pos + HEADER_SIZE <= buffer.capacity() && buffer.getInt(pos) > 0) {
+            offsets.add(pos);
+            pos += HEADER_SIZE + buffer.getInt(pos);
+        }
+        return offsets;
+    }
+
+    private static void zero(Path file, int from, int to) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        for (int i = from; i < to; i++) {
+            bytes[i] = 0;
+        }
+        Files.write(file, bytes);
+    }
+
+    private static UserMessage user(String text) {
+        return new UserMessage(text);
+    }
+
+    private static AssistantMessage assistant(String text) {
+        return new AssistantMessage(text);
+    }
+
+    @FunctionalInterface
+    private interface FileAction {
+        void run() throws IOException;
+    }
+}
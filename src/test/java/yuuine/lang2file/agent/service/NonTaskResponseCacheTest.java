@@ -0,0 +1,53 @@
+package yuuine.lang2file.agent.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import yuuine.lang2file.config.ResponseCacheProperties;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link NonTaskResponseCache} 的命中规则：仅相差一个实体的输入不能复用回复。
+ */
+class NonTaskResponseCacheTest {
+
+    private final NonTaskResponseCache cache = newCache();
+
+    @Test
+    void exactMatchAfterNormalization() {
+        cache.put("What's the weather like?", "reply");
+
+        assertEquals(Optional.of("reply"), cache.get("c1", "what's  the WEATHER like"));
+    }
+
+    @Test
+    void inputsDifferingInAnEntityAreNotServed() {
+        cache.put("my name is alice", "Nice to meet you, Alice!");
+        cache.put("hi, my name is bob", "Hi Bob!");
+        cache.put("我叫张三", "你好，张三！");
+        cache.put("tell me a joke about cats and dogs please", "cat joke");
+
+        assertEquals(Optional.empty(), cache.get("c1", "my name is alina"));
+        assertEquals(Optional.empty(), cache.get("c2", "hi, my name is rob"));
+        assertEquals(Optional.empty(), cache.get("c3", "我叫张四"));
+        assertEquals(Optional.empty(), cache.get("c4", "tell me a joke about cats and frogs please"));
+    }
+
+    @Test
+    void nearlyIdenticalGreetingsAreServed() {
+        cache.put("good morning everyone", "Good morning!");
+
+        assertEquals(Optional.of("Good morning!"), cache.get("c1", "good morning everyon"));
+        // 长度相差过大
+        assertEquals(Optional.empty(), cache.get("c2", "good morning every"));
+    }
+
+    private static NonTaskResponseCache newCache() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setEnabled(true);
+        return new NonTaskResponseCache(properties, MessageWindowChatMemory.builder().build(), new SimpleMeterRegistry());
+    }
+}
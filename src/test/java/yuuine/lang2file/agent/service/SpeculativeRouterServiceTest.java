@@ -0,0 +1,131 @@
+package yuuine.lang2file.agent.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import yuuine.lang2file.agent.dto.RouteDecision;
+import yuuine.lang2file.config.RouterProperties;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link SpeculativeRouterService} 取消推测工具选择时，与合并的并发请求之间的隔离。
+ */
+class SpeculativeRouterServiceTest {
+
+    private static final String INPUT = "summarize the release notes";
+    private static final List<String> TOOLS = List.of("readFile");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LlmRequestCoalescer coalescer = new LlmRequestCoalescer(new RouterProperties(), meterRegistry);
+
+    private final TaskChatRouterService taskRouter = mock(TaskChatRouterService.class);
+    private final ToolRouterService toolRouter = mock(ToolRouterService.class);
+    private final TaskDecisionCache decisionCache = mock(TaskDecisionCache.class);
+
+    private final SpeculativeRouterService router = new SpeculativeRouterService(taskRouter, toolRouter, decisionCache);
+
+    /**
+     * 模拟阻塞在 HTTP 调用上的工具选择
+     */
+    private final CountDownLatch selectionStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseSelection = new CountDownLatch(1);
+    private final AtomicBoolean selectionInterrupted = new AtomicBoolean();
+
+    @AfterEach
+    void shutdown() {
+        releaseSelection.countDown();
+        router.shutdown();
+    }
+
+    @Test
+    void cancellingNonTaskSelectionDoesNotFailConcurrentTaskRequest() throws Exception {
+        stubSelection();
+        when(taskRouter.classifyByLlm(anyString())).thenAnswer(invocation -> {
+            // 另一个任务请求加入同一次工具选择后，分类才返回非任务
+            awaitFollower();
+            return false;
+        });
+
+        CompletableFuture<List<String>> concurrent = CompletableFuture.supplyAsync(() -> {
+            awaitQuietly(selectionStarted);
+            return toolRouter.selectTools(INPUT);
+        });
+
+        assertEquals(RouteDecision.nonTask(), router.route(INPUT));
+
+        releaseSelection.countDown();
+        assertEquals(TOOLS, concurrent.get(5, TimeUnit.SECONDS));
+        assertFalse(selectionInterrupted.get());
+    }
+
+    @Test
+    void cancellingUnsharedSelectionInterruptsCall() throws Exception {
+        stubSelection();
+        when(taskRouter.classifyByLlm(anyString())).thenAnswer(invocation -> {
+            awaitQuietly(selectionStarted);
+            return false;
+        });
+
+        assertEquals(RouteDecision.nonTask(), router.route(INPUT));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!selectionInterrupted.get() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(selectionInterrupted.get());
+    }
+
+    private void stubSelection() {
+        when(taskRouter.classifyByRules(anyString())).thenReturn(Optional.empty());
+        when(decisionCache.get(anyString())).thenReturn(null);
+        when(toolRouter.selectTools(anyString())).thenAnswer(invocation ->
+                coalescer.execute(LlmRequestCoalescer.Stage.SELECT, invocation.getArgument(0), () -> {
+                    selectionStarted.countDown();
+                    try {
+                        releaseSelection.await();
+                    } catch (InterruptedException e) {
+                        selectionInterrupted.set(true);
+                        throw new IllegalStateException(e);
+                    }
+                    return TOOLS;
+                }));
+    }
+
+    private void awaitFollower() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (followers() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, followers());
+    }
+
+    private double followers() {
+        return meterRegistry.get("lang2file.router.singleflight.requests")
+                .tag("stage", "select")
+                .tag("role", "follower")
+                .functionCounter()
+                .count();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
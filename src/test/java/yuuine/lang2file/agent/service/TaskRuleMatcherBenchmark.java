@@ -0,0 +1,51 @@
+package yuuine.lang2file.agent.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static yuuine.lang2file.agent.service.TaskRuleMatcherTest.LEGACY_CN;
+import static yuuine.lang2file.agent.service.TaskRuleMatcherTest.LEGACY_EN;
+import static yuuine.lang2file.agent.service.TaskRuleMatcherTest.LEGACY_SHORT;
+import static yuuine.lang2file.agent.service.TaskRuleMatcherTest.pastedText;
+
+/**
+ * {@link TaskRuleMatcher} 与原正则规则在长输入上的延迟对比。
+ * <p>
+ * 单行长文本（如粘贴的日志或压缩后的 JSON）且不命中规则时，正则回溯最严重。计时结果受运行环境影响，
+ * 不作断言，默认不运行，需要时去掉 {@link Disabled} 手动执行。
+ * </p>
+ */
+@Slf4j
+@Disabled("手动运行的延迟基准")
+class TaskRuleMatcherBenchmark {
+
+    // 累加结果，避免被 JIT 消除
+    private static volatile int sink;
+
+    @Test
+    void longPastedInput() {
+        for (int kb : new int[]{1, 4, 16}) {
+            String input = pastedText(kb * 1024);
+            long matcherNanos = measure(() -> TaskRuleMatcher.match(input), 2000);
+            long regexNanos = measure(() -> LEGACY_EN.matcher(input).matches()
+                    || LEGACY_CN.matcher(input).matches()
+                    || LEGACY_SHORT.matcher(input).matches(), kb >= 16 ? 5 : 20);
+            log.info("{} KB: automaton {} ns/op, regex {} ns/op", kb, matcherNanos, regexNanos);
+        }
+    }
+
+    private static long measure(Supplier<?> task, int iterations) {
+        // 预热一轮再计时
+        for (int i = 0; i < iterations; i++) {
+            sink += task.get().hashCode();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += task.get().hashCode();
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+}
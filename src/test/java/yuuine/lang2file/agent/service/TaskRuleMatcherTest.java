@@ -0,0 +1,84 @@
+package yuuine.lang2file.agent.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link TaskRuleMatcher} 的规则一致性校验。
+ */
+class TaskRuleMatcherTest {
+
+    // 原先 TaskChatRouterService 中的正则规则，用于一致性校验与基准对比
+    static final Pattern LEGACY_EN = Pattern.compile(
+            "(?i).*\\b(create|write|delete|remove|move|rename|copy|open|edit|save|upload|download|compress|extract)\\b.*\\b(file|folder|directory|document|txt|pdf|doc|xls|ppt|zip)\\b.*");
+    static final Pattern LEGACY_CN = Pattern.compile(
+            ".*(创建|写入|删除|移除|移动|重命名|复制|打开|编辑|保存|上传|下载|压缩|解压|新建|修改).*(文件|文件夹|目录|文档|文本|图片|照片|视频|音乐|压缩包).*");
+    static final Pattern LEGACY_SHORT = Pattern.compile(
+            ".*(删|新建|创建|复制|粘贴|移动|重命名)(文件|文件夹|目录).*");
+
+    @Test
+    void positiveRulesMatchLegacyPatterns() {
+        List<String> inputs = List.of(
+                "please create a new file named a.txt",
+                "Delete the folder D:/tmp",
+                "CREATE FILE",
+                "the file should be created",
+                "recreate the files",
+                "save it as pdf",
+                "帮我创建一个文件",
+                "把这个文档删除",
+                "删文件",
+                "新建文件夹",
+                "粘贴文件到桌面",
+                "文件删除了吗",
+                "今天学习了什么",
+                "压缩包解压到哪里");
+        for (String input : inputs) {
+            boolean legacy = LEGACY_EN.matcher(input).matches()
+                    || LEGACY_CN.matcher(input).matches()
+                    || LEGACY_SHORT.matcher(input).matches();
+            boolean positive = TaskRuleMatcher.match(input) == TaskRuleMatcher.Verdict.POSITIVE;
+            assertEquals(legacy, positive, input);
+        }
+    }
+
+    @Test
+    void greetingsRespectWordBoundaries() {
+        assertEquals(TaskRuleMatcher.Verdict.GREETING, TaskRuleMatcher.match("Hi there"));
+        assertEquals(TaskRuleMatcher.Verdict.GREETING, TaskRuleMatcher.match("good morning!"));
+        assertEquals(TaskRuleMatcher.Verdict.GREETING, TaskRuleMatcher.match("你好呀"));
+        assertEquals(TaskRuleMatcher.Verdict.UNDETERMINED, TaskRuleMatcher.match("what is this"));
+        assertEquals(TaskRuleMatcher.Verdict.UNDETERMINED, TaskRuleMatcher.match("they said something"));
+        assertEquals(TaskRuleMatcher.Verdict.POSITIVE, TaskRuleMatcher.match("open this file"));
+    }
+
+    @Test
+    void matchesAcrossLines() {
+        assertEquals(TaskRuleMatcher.Verdict.POSITIVE, TaskRuleMatcher.match("some pasted text\nplease save it to a file"));
+    }
+
+    /**
+     * 单行长文本（如粘贴的日志或压缩后的 JSON）以动词结尾但不命中规则，延迟基准见 {@link TaskRuleMatcherBenchmark}。
+     */
+    @Test
+    void longPastedInputIsUndetermined() {
+        for (int kb : new int[]{1, 4, 16}) {
+            assertEquals(TaskRuleMatcher.Verdict.UNDETERMINED, TaskRuleMatcher.match(pastedText(kb * 1024)));
+        }
+    }
+
+    static String pastedText(int length) {
+        String chunk = "{\"level\":\"INFO\",\"msg\":\"request handled\",\"path\":\"/api/agent/chat\",\"cost\":12},";
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(chunk);
+        }
+        // 以动词结尾但没有名词，迫使正则在每个位置尝试后失败
+        sb.setLength(length - 6);
+        return sb.append(" write").toString();
+    }
+}
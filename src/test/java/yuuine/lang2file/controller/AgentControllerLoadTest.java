@@ -0,0 +1,215 @@
+package yuuine.lang2file.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 并发会话容量的负载测试：对比平台线程与虚拟线程两种请求执行方式。
+ * <p>
+ * 使用固定延迟的桩模型模拟阻塞的 LLM 调用，统计模型层观察到的最大并发会话数与总耗时。
+ * 平台线程模式下容量受 Tomcat 线程池上限约束；虚拟线程模式下阻塞调用不占用平台线程，容量接近并发请求数。
+ * 启用模型调用限流后，超出并发上限与等待队列的请求快速返回 503，模型侧并发不超过上限。
+ * </p>
+ * <p>
+ * 断言依赖调度时序且耗时较长，标记为 {@code load}，默认构建不运行，通过 {@code mvn test -Pload-test} 单独执行。
+ * </p>
+ */
+@Slf4j
+@Tag("load")
+class AgentControllerLoadTest {
+
+    private static final int SESSIONS = 200;
+    private static final int PLATFORM_MAX_THREADS = 20;
+    private static final int LIMIT = 10;
+    private static final Duration MODEL_LATENCY = Duration.ofMillis(200);
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.threads.virtual.enabled=false",
+            "server.tomcat.threads.max=" + PLATFORM_MAX_THREADS,
+            "lang2file.limiter.enabled=false"
+    })
+    @ActiveProfiles("test")
+    @Import(StubModelConfig.class)
+    class PlatformThreads {
+
+        @LocalServerPort
+        int port;
+
+        @Autowired
+        SlowChatModel chatModel;
+
+        @Test
+        void concurrencyIsCappedByThreadPool() throws Exception {
+            // 首轮用于预热（类加载、JIT、连接建立），以第二轮结果为准
+            runLoad(port, chatModel);
+            LoadResult result = runLoad(port, chatModel);
+            report("platform", result);
+            assertTrue(result.peakConcurrency() <= PLATFORM_MAX_THREADS, result.toString());
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.threads.virtual.enabled=true",
+            "server.tomcat.threads.max=" + PLATFORM_MAX_THREADS,
+            "lang2file.limiter.enabled=false"
+    })
+    @ActiveProfiles("test")
+    @Import(StubModelConfig.class)
+    class VirtualThreads {
+
+        @LocalServerPort
+        int port;
+
+        @Autowired
+        SlowChatModel chatModel;
+
+        @Test
+        void concurrencyIsNotCappedByThreadPool() throws Exception {
+            // 首轮用于预热（类加载、JIT、连接建立），以第二轮结果为准
+            runLoad(port, chatModel);
+            LoadResult result = runLoad(port, chatModel);
+            report("virtual", result);
+            assertTrue(result.peakConcurrency() > PLATFORM_MAX_THREADS, result.toString());
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.threads.virtual.enabled=true",
+            "lang2file.limiter.enabled=true",
+            "lang2file.limiter.initial-limit=" + LIMIT,
+            "lang2file.limiter.max-limit=" + LIMIT,
+            "lang2file.limiter.queue-size=" + LIMIT,
+            "lang2file.limiter.max-wait=100ms"
+    })
+    @ActiveProfiles("test")
+    @Import(StubModelConfig.class)
+    class VirtualThreadsWithLimiter {
+
+        @LocalServerPort
+        int port;
+
+        @Autowired
+        SlowChatModel chatModel;
+
+        @Test
+        void excessLoadIsShedWithServiceUnavailable() throws Exception {
+            runLoad(port, chatModel);
+            LoadResult result = runLoad(port, chatModel);
+            report("limited", result);
+            assertTrue(result.peakConcurrency() <= LIMIT, result.toString());
+            assertTrue(result.rejected() > 0, result.toString());
+            assertEquals(SESSIONS, result.calls() + result.rejected(), result.toString());
+        }
+    }
+
+    private static LoadResult runLoad(int port, SlowChatModel chatModel) throws Exception {
+        chatModel.reset();
+        URI uri = URI.create("http://localhost:" + port + "/api/agent/chatText");
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+
+            long start = System.nanoTime();
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < SESSIONS; i++) {
+                // 问候语由规则直接判定为非任务，每个会话只产生一次模型调用
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .timeout(Duration.ofSeconds(60))
+                        .POST(HttpRequest.BodyPublishers.ofString("hello #" + i))
+                        .build();
+                responses.add(http.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            int rejected = 0;
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                int status = response.join().statusCode();
+                if (status == 503) {
+                    rejected++;
+                } else {
+                    assertEquals(200, status);
+                }
+            }
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            return new LoadResult(chatModel.peak.get(), chatModel.calls.get(), rejected, elapsedMillis);
+        }
+    }
+
+    private static void report(String mode, LoadResult result) {
+        log.info("负载测试 {}: sessions={} peak concurrency={} model calls={} rejected={} elapsed={} ms",
+                mode, SESSIONS, result.peakConcurrency(), result.calls(), result.rejected(), result.elapsedMillis());
+    }
+
+    private record LoadResult(int peakConcurrency, int calls, int rejected, long elapsedMillis) {
+    }
+
+    /**
+     * 固定延迟的桩模型，记录同时处于调用中的会话数峰值。
+     */
+    static class SlowChatModel implements ChatModel {
+
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+
+        void reset() {
+            peak.set(0);
+            calls.set(0);
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            int current = active.incrementAndGet();
+            peak.accumulateAndGet(current, Math::max);
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(MODEL_LATENCY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("hi"))));
+        }
+    }
+
+    @TestConfiguration
+    static class StubModelConfig {
+
+        @Bean
+        @Primary
+        SlowChatModel slowChatModel() {
+            return new SlowChatModel();
+        }
+    }
+}
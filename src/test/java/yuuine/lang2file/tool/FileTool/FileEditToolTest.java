@@ -0,0 +1,162 @@
+package yuuine.lang2file.tool.FileTool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * {@link FileEditTool} 补丁解析与拼接的校验。
+ */
+class FileEditToolTest {
+
+    @TempDir
+    Path dir;
+
+    // ========== parsePatch ==========
+
+    @Test
+    void removedLineStartingWithDoubleDashIsNotFileHeader() {
+        List<FileEditTool.Change> changes = new ArrayList<>();
+        String patch = """
+                @@ -1,3 +1,3 @@
+                 SELECT 1;
+                --- old comment
+                +-- new comment
+                 SELECT 2;
+                """;
+
+        assertNull(FileEditTool.parsePatch(patch, changes));
+        assertEquals(1, changes.size());
+        assertEquals(List.of("SELECT 1;", "-- old comment", "SELECT 2;"), changes.get(0).oldLines());
+        assertEquals(List.of("SELECT 1;", "-- new comment", "SELECT 2;"), changes.get(0).newLines());
+    }
+
+    @Test
+    void fileHeadersBetweenHunksAreSkipped() {
+        List<FileEditTool.Change> changes = new ArrayList<>();
+        String patch = """
+                --- a/x.txt
+                +++ b/x.txt
+                @@ -2 +2 @@
+                -b
+                +B
+                \\ No newline at end of file
+                --- a/x.txt
+                +++ b/x.txt
+                @@ -5,0 +6,2 @@
+                +f
+                +g
+                """;
+
+        assertNull(FileEditTool.parsePatch(patch, changes));
+        assertEquals(2, changes.size());
+        assertEquals(2, changes.get(0).startLine());
+        assertEquals(List.of("b"), changes.get(0).oldLines());
+        // 纯插入块：在第 5 行之后插入
+        assertEquals(6, changes.get(1).startLine());
+        assertEquals(0, changes.get(1).lineCount());
+        assertEquals(List.of("f", "g"), changes.get(1).newLines());
+    }
+
+    @Test
+    void hunkShorterThanHeaderIsRejected() {
+        String patch = """
+                @@ -1,3 +1,3 @@
+                 a
+                -b
+                +B
+                """;
+
+        assertNotNull(FileEditTool.parsePatch(patch, new ArrayList<>()));
+    }
+
+    @Test
+    void hunkLongerThanHeaderIsRejected() {
+        String patch = """
+                @@ -1,2 +1,2 @@
+                 a
+                -b
+                +B
+                 c
+                """;
+
+        assertNotNull(FileEditTool.parsePatch(patch, new ArrayList<>()));
+    }
+
+    // ========== splice ==========
+
+    @Test
+    void pureInsertKeepsSurroundingLines() throws IOException {
+        String result = splice("a\nb\nc\n", 2, 0, List.of("x", "y"));
+
+        assertEquals("a\nx\ny\nb\nc\n", result);
+    }
+
+    @Test
+    void deletionAtEndOfFile() throws IOException {
+        assertEquals("a\n", splice("a\nb\nc\n", 2, 2, List.of()));
+        assertEquals("a", splice("a\nb\nc", 2, 2, List.of()));
+        assertEquals("a\r\nb", splice("a\r\nb\r\nc", 3, 1, List.of()));
+    }
+
+    @Test
+    void missingTrailingNewlineIsPreserved() throws IOException {
+        assertEquals("a\nb\nC", splice("a\nb\nc", 3, 1, List.of("C")));
+        assertEquals("a\nb\nc\nd", splice("a\nb\nc", 4, 0, List.of("d")));
+        assertEquals("A\nb\nc", splice("a\nb\nc", 1, 1, List.of("A")));
+    }
+
+    @Test
+    void crlfLineEndingsArePreserved() throws IOException {
+        assertEquals("a\r\nB1\r\nB2\r\nc\r\n", splice("a\r\nb\r\nc\r\n", 2, 1, List.of("B1", "B2")));
+        assertEquals("a\r\nb\r\nc\r\nd\r\n", splice("a\r\nb\r\nc\r\n", 4, 0, List.of("d")));
+    }
+
+    /**
+     * 将第 {@code startLine} 行起的 {@code lineCount} 行替换为 {@code newLines}，返回新文件内容。
+     */
+    private String splice(String content, long startLine, long lineCount, List<String> newLines) throws IOException {
+        Path source = dir.resolve("source.txt");
+        Path target = dir.resolve("target.txt");
+        Files.writeString(source, content, StandardCharsets.UTF_8);
+
+        List<Long> starts = lineStarts(content.getBytes(StandardCharsets.UTF_8));
+        long start = starts.get((int) startLine - 1);
+        long end = starts.get((int) (startLine + lineCount) - 1);
+        FileEditTool.Change change = new FileEditTool.Change(1, startLine, null, lineCount, newLines, false);
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            FileEditTool.splice(in, out, StandardCharsets.UTF_8,
+                    List.of(new FileEditTool.Located(change, startLine, start, end)));
+        }
+        return Files.readString(target, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 每行的起始偏移，末尾附加文件大小，便于按行号取区间。
+     */
+    private static List<Long> lineStarts(byte[] bytes) {
+        List<Long> starts = new ArrayList<>(List.of(0L));
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n' && i + 1 < bytes.length) {
+                starts.add(i + 1L);
+            }
+        }
+        starts.add((long) bytes.length);
+        return starts;
+    }
+}
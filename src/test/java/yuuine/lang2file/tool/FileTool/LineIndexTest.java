@@ -0,0 +1,165 @@
+package yuuine.lang2file.tool.FileTool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * {@link LineIndex} 的定位、增量扩展与持久化校验。
+ * <p>
+ * 使用很小的扫描块和检查点间隔，使行首、检查点与块边界在测试数据中大量交错。
+ * </p>
+ */
+class LineIndexTest {
+
+    private static final int STRIDE = 3;
+    private static final int CHUNK = 7;
+    private static final int WINDOW = 4096;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void locatesEveryLineAcrossChunkAndStrideBoundaries() throws IOException {
+        for (String content : List.of("", "a", "a\n", "\n\n\n", "a\nbb\n\nccc\ndddd\ne\nff\n", "a\nbb\n\nccc\ndddd\ne\nff")) {
+            Path file = write(content);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                LineIndex index = LineIndex.build(channel, channel.size(), 0, STRIDE, CHUNK, executor);
+                assertMatches(content, index, channel);
+            }
+        }
+    }
+
+    @Test
+    void extendsAfterAppend() throws IOException {
+        String initial = numbered(0, 20);
+        Path file = write(initial);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            LineIndex index = LineIndex.build(channel, channel.size(), 1, STRIDE, CHUNK, executor);
+
+            String appended = "partial" + numbered(20, 35);
+            Files.writeString(file, appended, StandardOpenOption.APPEND);
+            LineIndex extended = index.extend(channel, channel.size(), 2, STRIDE, CHUNK, executor);
+
+            assertNotNull(extended);
+            assertEquals(2, extended.lastModified());
+            assertMatches(initial + appended, extended, channel);
+        }
+    }
+
+    @Test
+    void rewriteOrTruncationRequiresRebuild() throws IOException {
+        String initial = numbered(0, 20);
+        Path file = write(initial);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            LineIndex index = LineIndex.build(channel, channel.size(), 1, STRIDE, CHUNK, executor);
+
+            // 已索引部分末尾被改写后再追加
+            write(initial.replace("line 19", "LINE 19") + "more\n");
+            assertNull(index.extend(channel, channel.size(), 2, STRIDE, CHUNK, executor));
+
+            // 大小不变
+            write(initial.replace("line 19", "LINE 19"));
+            assertNull(index.extend(channel, channel.size(), 2, STRIDE, CHUNK, executor));
+
+            // 截断
+            write("line 0\n");
+            assertNull(index.extend(channel, channel.size(), 2, STRIDE, CHUNK, executor));
+        }
+    }
+
+    @Test
+    void persistedIndexRoundTrips() throws IOException {
+        String content = numbered(0, 40) + "tail";
+        Path file = write(content);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            LineIndex index = LineIndex.build(channel, channel.size(), 42, STRIDE, CHUNK, executor);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            index.writeTo(new DataOutputStream(bytes));
+            LineIndex loaded = LineIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+            assertNotNull(loaded);
+            assertEquals(index.size(), loaded.size());
+            assertEquals(42, loaded.lastModified());
+            assertEquals(index.checkpoints(), loaded.checkpoints());
+            assertMatches(content, loaded, channel);
+
+            // 读回的索引同样可以扩展
+            Files.writeString(file, "\nappended\n", StandardOpenOption.APPEND);
+            LineIndex extended = loaded.extend(channel, channel.size(), 43, STRIDE, CHUNK, executor);
+            assertNotNull(extended);
+            assertMatches(content + "\nappended\n", extended, channel);
+        }
+
+        byte[] corrupt = {0, 1, 2, 3, 0, 0, 0, 1};
+        assertNull(LineIndex.readFrom(new DataInputStream(new ByteArrayInputStream(corrupt))));
+    }
+
+    /**
+     * 与逐字节计算的结果比较：每一行的起始偏移，以及每个偏移所在的行号。
+     */
+    private static void assertMatches(String content, LineIndex index, FileChannel channel) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        List<Long> starts = new ArrayList<>();
+        if (bytes.length > 0) {
+            starts.add(0L);
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n' && i + 1 < bytes.length) {
+                starts.add(i + 1L);
+            }
+        }
+        assertEquals(starts.size(), index.lineCount(), content);
+        for (int line = 1; line <= starts.size(); line++) {
+            assertEquals(starts.get(line - 1), index.lineOffset(channel, line, WINDOW), content + " line " + line);
+        }
+        assertEquals(-1, index.lineOffset(channel, starts.size() + 1, WINDOW));
+
+        long line = 1;
+        for (int offset = 0; offset < bytes.length; offset++) {
+            assertEquals(line, index.lineAt(channel, offset, WINDOW), content + " offset " + offset);
+            if (bytes[offset] == '\n') {
+                line++;
+            }
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(dir.resolve("file.log"), content, StandardCharsets.UTF_8);
+    }
+
+    private static String numbered(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            sb.append("line ").append(i).append('\n');
+        }
+        return sb.toString();
+    }
+}